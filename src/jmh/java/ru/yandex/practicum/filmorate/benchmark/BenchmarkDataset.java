@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Детерминированный набор данных для бенчмарков: одна и та же база для одного и того же числа лайков.
+ * Каждый пользователь лайкает {@link #LIKES_PER_USER} фильмов и дружит с {@link #FRIENDS_PER_USER} пользователями.
+ */
+public final class BenchmarkDataset implements AutoCloseable {
+    public static final int LIKES_PER_USER = 20;
+    public static final int FRIENDS_PER_USER = 20;
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int films;
+    private final int users;
+
+    private BenchmarkDataset(int likes) {
+        this.films = filmsFor(likes);
+        this.users = usersFor(likes);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:bench-" + likes + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        seed();
+    }
+
+    public static BenchmarkDataset create(int likes) {
+        return new BenchmarkDataset(likes);
+    }
+
+    public static int filmsFor(int likes) {
+        return Math.max(1_000, likes / 100);
+    }
+
+    public static int usersFor(int likes) {
+        return Math.max(1, likes / LIKES_PER_USER);
+    }
+
+    /**
+     * k-й фильм, который лайкнул пользователь; 97 взаимно просто с числом фильмов, поэтому фильмы не повторяются.
+     */
+    public static long likedFilm(long userId, int k, int films) {
+        return (userId * 31 + k * 97L) % films + 1;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public int films() {
+        return films;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.close();
+    }
+
+    private void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO users (user_id, email, login, name, birthday)
+                SELECT x, 'user' || x || '@mail.ru', 'user' || x, 'User ' || x, DATEADD('DAY', -MOD(x, 20000), DATE '2005-01-01')
+                FROM SYSTEM_RANGE(1, ?)
+                """, users);
+        jdbcTemplate.update("""
+                INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+                SELECT x, 'Film ' || x, 'Description of film ' || x, DATEADD('DAY', -MOD(x, 30000), DATE '2024-01-01'),
+                       60 + MOD(x, 120), MOD(x, 5) + 1
+                FROM SYSTEM_RANGE(1, ?)
+                """, films);
+        jdbcTemplate.update("""
+                INSERT INTO film_genres (film_id, genre_id)
+                SELECT DISTINCT f.x, MOD(f.x * g.x, 6) + 1
+                FROM SYSTEM_RANGE(1, ?) f, SYSTEM_RANGE(1, 2) g
+                """, films);
+        jdbcTemplate.update("""
+                INSERT INTO film_likes (film_id, user_id)
+                SELECT MOD(u.x * 31 + k.x * 97, ?) + 1, u.x
+                FROM SYSTEM_RANGE(1, ?) u, SYSTEM_RANGE(1, ?) k
+                """, films, users, LIKES_PER_USER);
+        jdbcTemplate.update("""
+                INSERT INTO friendships (user_id, friend_id, status)
+                SELECT DISTINCT u.x, MOD(u.x + 7 * k.x * k.x, ?) + 1, 'CONFIRMED'
+                FROM SYSTEM_RANGE(1, ?) u, SYSTEM_RANGE(1, ?) k
+                WHERE MOD(u.x + 7 * k.x * k.x, ?) + 1 <> u.x
+                """, users, users, FRIENDS_PER_USER, users);
+        jdbcTemplate.update("""
+                UPDATE films f
+                SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dal.FilmDetailsLoader;
+import ru.yandex.practicum.filmorate.dal.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmDbStorageBenchmark {
+    private static final String FILM_PAGE_SQL = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.likes_count,
+                   f.mpa_id, m.code AS mpa_name
+            FROM films f
+            LEFT JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
+            ORDER BY f.film_id
+            LIMIT 1000
+            """;
+
+    @Param({"10000", "100000", "1000000"})
+    private int likes;
+
+    private BenchmarkDataset dataset;
+    private JdbcTemplate jdbcTemplate;
+    private FilmDetailsLoader filmDetailsLoader;
+    private FilmDbStorage filmDbStorage;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(42);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.create(likes);
+        jdbcTemplate = dataset.jdbcTemplate();
+        filmDetailsLoader = new FilmDetailsLoader(jdbcTemplate);
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, filmDetailsLoader);
+        filmDbStorage.rebuildPopularityIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmDbStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsCompact() {
+        return filmDbStorage.getPopularFilms(10, FilmView.COMPACT);
+    }
+
+    @Benchmark
+    public Optional<Film> getById(Cursor cursor) {
+        return filmDbStorage.getById(1 + cursor.random.nextLong(dataset.films()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Film> getAll() {
+        return filmDbStorage.getAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Film> getAllCompact() {
+        return filmDbStorage.getAll(FilmView.COMPACT);
+    }
+
+    @Benchmark
+    public List<Film> mapFilmRows() {
+        return jdbcTemplate.query(FILM_PAGE_SQL, new FilmRowMapper());
+    }
+
+    @Benchmark
+    public List<Film> mapFilmRowsWithDetails() {
+        return filmDetailsLoader.load(jdbcTemplate.query(FILM_PAGE_SQL, new FilmRowMapper()), FilmView.FULL);
+    }
+}
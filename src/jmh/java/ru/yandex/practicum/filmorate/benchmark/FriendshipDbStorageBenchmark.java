@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dal.FriendshipDbStorage;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.dal.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendshipDbStorageBenchmark {
+    // прежняя реализация через двойной self-join, для сравнения с пересечением в памяти
+    private static final String COMMON_FRIENDS_JOIN_SQL = """
+            SELECT u.*
+            FROM users u
+            JOIN friendships f1 ON u.user_id = f1.friend_id
+            JOIN friendships f2 ON u.user_id = f2.friend_id
+            WHERE f1.user_id = ?
+              AND f2.user_id = ?
+            """;
+
+    @Param({"10000", "100000", "1000000"})
+    private int likes;
+
+    private BenchmarkDataset dataset;
+    private FriendshipDbStorage friendshipDbStorage;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(42);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.create(likes);
+        friendshipDbStorage = new FriendshipDbStorage(
+                dataset.jdbcTemplate(), new UserDbStorage(dataset.jdbcTemplate()), 1000, 50);
+        friendshipDbStorage.rebuildGraph();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Collection<User> getFriends(Cursor cursor) {
+        return friendshipDbStorage.getFriends(randomUser(cursor));
+    }
+
+    @Benchmark
+    public Collection<User> getCommonFriends(Cursor cursor) {
+        long userId = randomUser(cursor);
+        return friendshipDbStorage.getCommonFriends(userId, pairedUser(userId));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriendsJoin(Cursor cursor) {
+        long userId = randomUser(cursor);
+        return dataset.jdbcTemplate().query(COMMON_FRIENDS_JOIN_SQL, new UserRowMapper(), userId, pairedUser(userId));
+    }
+
+    @Benchmark
+    public List<User> getFriendSuggestions(Cursor cursor) {
+        return friendshipDbStorage.getFriendSuggestions(randomUser(cursor), 10);
+    }
+
+    // друзья пользователя u — это u + 7k², поэтому у u и u + 21 есть общий друг (7·2² = 21 + 7·1²)
+    private long pairedUser(long userId) {
+        return (userId + 20) % dataset.users() + 1;
+    }
+
+    private long randomUser(Cursor cursor) {
+        return 1 + cursor.random.nextLong(dataset.users());
+    }
+}
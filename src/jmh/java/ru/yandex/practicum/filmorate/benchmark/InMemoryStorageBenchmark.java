@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хранилища в памяти на том же распределении данных, что и {@link BenchmarkDataset}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryStorageBenchmark {
+    private static final AtomicLong THREAD_USERS = new AtomicLong(Long.MAX_VALUE / 2);
+
+    @Param({"10000", "100000", "1000000"})
+    private int likes;
+
+    private int films;
+    private int users;
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(42);
+        // свой пользователь на поток, чтобы лайки потоков не конфликтовали
+        private final long userId = THREAD_USERS.incrementAndGet();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        films = BenchmarkDataset.filmsFor(likes);
+        users = BenchmarkDataset.usersFor(likes);
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+
+        for (int i = 1; i <= films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description of film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 8000));
+            film.setDuration(60 + i % 120);
+            filmStorage.addFilm(film);
+        }
+        List<LikeChange> changes = new ArrayList<>(users * BenchmarkDataset.LIKES_PER_USER);
+        for (long userId = 1; userId <= users; userId++) {
+            User user = new User();
+            user.setEmail("user" + userId + "@mail.ru");
+            user.setLogin("user" + userId);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.addUser(user);
+            for (int k = 1; k <= BenchmarkDataset.LIKES_PER_USER; k++) {
+                changes.add(new LikeChange(BenchmarkDataset.likedFilm(userId, k, films), userId, true));
+            }
+        }
+        filmStorage.applyLikeChanges(changes);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public Optional<Film> getById(Cursor cursor) {
+        return filmStorage.getById(1 + cursor.random.nextLong(films));
+    }
+
+    @Benchmark
+    public List<Long> getLikesPage(Cursor cursor) {
+        return filmStorage.getLikes(1 + cursor.random.nextLong(films), 0, 100);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void likeAndUnlike(Cursor cursor) {
+        long filmId = 1 + cursor.random.nextLong(films);
+        filmStorage.addLike(filmId, cursor.userId);
+        filmStorage.removeLike(filmId, cursor.userId);
+    }
+
+    @Benchmark
+    public Optional<User> findUserByLogin(Cursor cursor) {
+        return userStorage.findByLogin("user" + (1 + cursor.random.nextLong(users)));
+    }
+
+    @Benchmark
+    public List<User> getUsersPage(Cursor cursor) {
+        return userStorage.getPage(cursor.random.nextLong(users), 100);
+    }
+}
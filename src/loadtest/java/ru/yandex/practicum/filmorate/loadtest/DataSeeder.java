@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Заполняет базу синтетическими данными пакетными вставками JDBC:
+ * популярность фильмов — по Ципфу, число лайков и друзей у пользователя — степенное (Парето).
+ */
+@Slf4j
+public class DataSeeder {
+    private static final int BATCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestConfig config;
+    private final SplittableRandom random;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate, LoadTestConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.random = new SplittableRandom(config.seed());
+    }
+
+    /**
+     * Возвращает множество засеянных лайков в виде ключей {@link #likeKey(long, long)}.
+     */
+    public Set<Long> seed() {
+        long started = System.nanoTime();
+        insertUsers();
+        insertFilms();
+        Set<Long> likes = insertLikes();
+        long friendships = insertFriendships();
+        jdbcTemplate.update("""
+                UPDATE films f
+                SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+                """);
+        restartIdentity("users", "user_id");
+        restartIdentity("films", "film_id");
+        log.warn("Данные засеяны за {} мс: {} пользователей, {} фильмов, {} лайков, {} дружб",
+                (System.nanoTime() - started) / 1_000_000, config.users(), config.films(), likes.size(), friendships);
+        return likes;
+    }
+
+    public static long likeKey(long filmId, long userId) {
+        return filmId << 32 | userId;
+    }
+
+    private void insertUsers() {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        String sql = "INSERT INTO users (user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)";
+        for (long id = 1; id <= config.users(); id++) {
+            LocalDate birthday = LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000));
+            batch.add(new Object[]{id, "user" + id + "@mail.ru", "user" + id, "User " + id, Date.valueOf(birthday)});
+            flushIfFull(sql, batch);
+        }
+        flush(sql, batch);
+    }
+
+    private void insertFilms() {
+        List<Object[]> films = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> genres = new ArrayList<>(BATCH_SIZE);
+        String filmSql = """
+                INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """;
+        String genreSql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
+        for (long id = 1; id <= config.films(); id++) {
+            LocalDate releaseDate = LocalDate.of(1930, 1, 1).plusDays(random.nextInt(34_000));
+            films.add(new Object[]{id, "Film " + id, "Synthetic film " + id, Date.valueOf(releaseDate),
+                    60 + random.nextInt(120), 1 + random.nextInt(5)});
+            int firstGenre = 1 + random.nextInt(6);
+            genres.add(new Object[]{id, firstGenre});
+            if (random.nextBoolean()) {
+                genres.add(new Object[]{id, firstGenre % 6 + 1});
+            }
+            flushIfFull(filmSql, films);
+            if (films.isEmpty()) {
+                flush(genreSql, genres);
+            }
+        }
+        flush(filmSql, films);
+        flush(genreSql, genres);
+    }
+
+    private Set<Long> insertLikes() {
+        ZipfDistribution popularity = new ZipfDistribution(config.films(), config.zipfExponent());
+        Set<Long> likes = ConcurrentHashMap.newKeySet();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
+        for (long userId = 1; userId <= config.users(); userId++) {
+            int count = powerLaw(config.likesPerUser(), config.films() / 2);
+            Set<Long> liked = new HashSet<>();
+            // при сильном перекосе популярные фильмы выпадают повторно, число попыток ограничено
+            for (int attempt = 0; liked.size() < count && attempt < count * 10; attempt++) {
+                long filmId = popularity.sample(random);
+                if (liked.add(filmId)) {
+                    likes.add(likeKey(filmId, userId));
+                    batch.add(new Object[]{filmId, userId});
+                    flushIfFull(sql, batch);
+                }
+            }
+        }
+        flush(sql, batch);
+        return likes;
+    }
+
+    private long insertFriendships() {
+        // хабы — пользователи с малыми id: на них чаще всего указывают рёбра
+        ZipfDistribution targets = new ZipfDistribution(config.users(), config.zipfExponent());
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        String sql = "INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, 'CONFIRMED')";
+        long total = 0;
+        for (long userId = 1; userId <= config.users(); userId++) {
+            int degree = powerLaw(config.friendsPerUser(), config.users() - 1);
+            Set<Long> friends = new HashSet<>();
+            for (int attempt = 0; friends.size() < degree && attempt < degree * 10; attempt++) {
+                long friendId = targets.sample(random);
+                if (friendId != userId && friends.add(friendId)) {
+                    batch.add(new Object[]{userId, friendId});
+                    flushIfFull(sql, batch);
+                }
+            }
+            total += friends.size();
+        }
+        flush(sql, batch);
+        return total;
+    }
+
+    /**
+     * Случайная величина Парето с заданным средним, обрезанная сверху.
+     */
+    private int powerLaw(int mean, int max) {
+        double alpha = config.powerLawAlpha();
+        double minimum = mean * (alpha - 2) / (alpha - 1);
+        double value = minimum * Math.pow(1 - random.nextDouble(), -1 / (alpha - 1));
+        return (int) Math.max(1, Math.min(max, Math.round(value)));
+    }
+
+    // id вставлены явно, и identity-колонка о них не знает: без сдвига первый же POST получит занятый id
+    private void restartIdentity(String table, String column) {
+        Long next = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table, Long.class);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + next);
+    }
+
+    private void flushIfFull(String sql, List<Object[]> batch) {
+        if (batch.size() >= BATCH_SIZE) {
+            flush(sql, batch);
+        }
+    }
+
+    private void flush(String sql, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лог-линейная гистограмма задержек в наносекундах без блокировок.
+ * Каждая степень двойки делится на 64 корзины, поэтому погрешность перцентилей не больше ~1.6%.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_BIT = 40; // ~18 минут
+    private static final int BUCKETS = 2 * SUB_BUCKETS + (MAX_BIT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long nanos, boolean success) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+        total.increment();
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * Значение перцентиля в наносекундах, {@code percentile} — от 0 до 100.
+     */
+    public long percentile(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(BUCKETS - 1);
+    }
+
+    public long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return valueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_BIT) - SUB_BUCKET_BITS;
+        long mantissa = Math.min(value >>> shift, 2 * SUB_BUCKETS - 1);
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (mantissa - SUB_BUCKETS);
+    }
+
+    private static long valueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long mantissa = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        // середина корзины
+        return (mantissa << shift) + (1L << (shift - 1));
+    }
+}
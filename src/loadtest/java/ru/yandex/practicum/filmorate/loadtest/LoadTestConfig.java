@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона, задаются аргументами вида {@code --users=10000 --duration=PT1M --mix=popular:20,film:30}.
+ */
+public record LoadTestConfig(
+        int users,
+        int films,
+        int likesPerUser,
+        int friendsPerUser,
+        double zipfExponent,
+        double powerLawAlpha,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        Duration burstPeriod,
+        Duration burstLength,
+        double burstFactor,
+        Map<Operation, Integer> mix,
+        String threads,
+        Duration dbLatency,
+        long seed,
+        String report
+) {
+    private static final String DEFAULT_MIX = "popular:20,film:30,page:5,like:20,friends:15,common:10";
+
+    public LoadTestConfig {
+        if (powerLawAlpha <= 2) {
+            throw new IllegalArgumentException("power-law-alpha должен быть больше 2, иначе среднее не определено");
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Смесь запросов пуста");
+        }
+        if (!List.of("platform", "virtual", "compare").contains(threads)) {
+            throw new IllegalArgumentException("threads должен быть platform, virtual или compare: " + threads);
+        }
+    }
+
+    /**
+     * Режимы потоков приложения, в которых выполняется прогон; compare — оба по очереди.
+     */
+    public List<String> threadModes() {
+        return threads.equals("compare") ? List.of("platform", "virtual") : List.of(threads);
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --key=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        return new LoadTestConfig(
+                Integer.parseInt(values.getOrDefault("users", "10000")),
+                Integer.parseInt(values.getOrDefault("films", "5000")),
+                Integer.parseInt(values.getOrDefault("likes-per-user", "20")),
+                Integer.parseInt(values.getOrDefault("friends-per-user", "10")),
+                Double.parseDouble(values.getOrDefault("zipf", "1.0")),
+                Double.parseDouble(values.getOrDefault("power-law-alpha", "2.5")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                Duration.parse(values.getOrDefault("warmup", "PT5S")),
+                Duration.parse(values.getOrDefault("duration", "PT30S")),
+                Duration.parse(values.getOrDefault("burst-period", "PT10S")),
+                Duration.parse(values.getOrDefault("burst-length", "PT2S")),
+                Double.parseDouble(values.getOrDefault("burst-factor", "10")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                values.getOrDefault("threads", "platform"),
+                Duration.parse(values.getOrDefault("db-latency", "PT0S")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.get("report")
+        );
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Operation.fromKey(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
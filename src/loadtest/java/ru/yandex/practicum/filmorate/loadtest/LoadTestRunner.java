@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.dal.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dal.FriendshipDbStorage;
+import ru.yandex.practicum.filmorate.service.BrowseService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон: поднимает приложение на H2 в памяти, засеивает данные и гоняет смесь запросов
+ * из виртуальных потоков по закрытой модели (каждый поток ждёт ответа перед следующим запросом).
+ * С {@code --threads=compare} прогон повторяется на платформенных и на виртуальных потоках приложения,
+ * {@code --db-latency} добавляет задержку к каждому обращению к базе.
+ * Запуск: {@code mvn -Ploadtest -DskipTests test-compile exec:exec -Dloadtest.args="--duration=PT1M"}.
+ */
+public class LoadTestRunner {
+    private final LoadTestConfig config;
+    private final String threads;
+    private final HttpClient client;
+    private final String baseUrl;
+    // состояние пары фильм-пользователь; отсутствие ключа — лайка нет
+    private final ConcurrentMap<Long, LikeState> likes = new ConcurrentHashMap<>();
+    private final ZipfDistribution filmPopularity;
+    private final ZipfDistribution userActivity;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final AtomicLong seeds;
+    private volatile boolean recording;
+
+    LoadTestRunner(LoadTestConfig config, String threads, String baseUrl, Set<Long> likes) {
+        this.config = config;
+        this.threads = threads;
+        this.baseUrl = baseUrl;
+        likes.forEach(key -> this.likes.put(key, LikeState.LIKED));
+        this.filmPopularity = new ZipfDistribution(config.films(), config.zipfExponent());
+        this.userActivity = new ZipfDistribution(config.users(), config.zipfExponent());
+        this.seeds = new AtomicLong(config.seed());
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        List<Measurement> measurements = new ArrayList<>();
+        for (String threads : config.threadModes()) {
+            measurements.addAll(measure(config, threads));
+        }
+        if (config.threadModes().size() > 1) {
+            compare(measurements);
+        }
+        writeReport(config, measurements);
+    }
+
+    static List<Measurement> measure(LoadTestConfig config, String threads) throws Exception {
+        SlowDataSource.Installer slowDatabase = new SlowDataSource.Installer();
+        try (ConfigurableApplicationContext context = startApplication(threads, slowDatabase)) {
+            Set<Long> likes = new DataSeeder(context.getBean(JdbcTemplate.class), config).seed();
+            // засеивание идёт мимо сервисов, поэтому все индексы, собранные при старте, перестраиваются
+            context.getBean(FilmDbStorage.class).rebuildPopularityIndex();
+            context.getBean(FriendshipDbStorage.class).rebuildGraph();
+            context.getBean(SearchService.class).rebuild();
+            context.getBean(BrowseService.class).rebuild();
+            context.getBean(RecommendationService.class).rebuild();
+            context.getBean(CachingFilmStorage.class).invalidateAll();
+            slowDatabase.get().setLatency(config.dbLatency());
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestRunner runner = new LoadTestRunner(config, threads, "http://localhost:" + port, likes);
+            return runner.run();
+        }
+    }
+
+    static ConfigurableApplicationContext startApplication(String threads, SlowDataSource.Installer slowDatabase) {
+        // аргументы командной строки перекрывают application.properties
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(slowDatabase))
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + threads + ";DB_CLOSE_DELAY=-1",
+                        "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.zalando.logbook=OFF",
+                        "--logging.level.org.zalando.logbook.Logbook=OFF",
+                        "--filmorate.likes.consistency-check.enabled=false");
+    }
+
+    List<Measurement> run() throws Exception {
+        if (!config.warmup().isZero()) {
+            System.out.printf("Прогрев %s, %d потоков%n", config.warmup(), config.concurrency());
+            drive(config.warmup());
+        }
+        histograms.clear();
+        recording = true;
+        System.out.printf("Замер %s, %d потоков, смесь %s, потоки приложения: %s, задержка базы: %s%n",
+                config.duration(), config.concurrency(), config.mix(), threads, config.dbLatency());
+        long started = System.nanoTime();
+        drive(config.duration());
+        return report((System.nanoTime() - started) / 1e9);
+    }
+
+    private void drive(Duration duration) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.concurrency(); i++) {
+                SplittableRandom random = new SplittableRandom(seeds.incrementAndGet());
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        execute(pick(random, startedAt), random);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Выбор операции по весам смеси; во время всплеска вес лайков умножается на burst-factor.
+     */
+    private Operation pick(SplittableRandom random, long startedAt) {
+        long elapsed = System.nanoTime() - startedAt;
+        boolean burst = !config.burstLength().isZero()
+                && elapsed % config.burstPeriod().toNanos() < config.burstLength().toNanos();
+
+        double total = 0;
+        for (Map.Entry<Operation, Integer> entry : config.mix().entrySet()) {
+            total += weight(entry, burst);
+        }
+        double target = random.nextDouble() * total;
+        for (Map.Entry<Operation, Integer> entry : config.mix().entrySet()) {
+            target -= weight(entry, burst);
+            if (target < 0) {
+                return entry.getKey();
+            }
+        }
+        return config.mix().keySet().iterator().next();
+    }
+
+    private double weight(Map.Entry<Operation, Integer> entry, boolean burst) {
+        return entry.getKey() == Operation.LIKE && burst ? entry.getValue() * config.burstFactor() : entry.getValue();
+    }
+
+    private void execute(Operation operation, SplittableRandom random) {
+        long userId = userActivity.sample(random);
+        switch (operation) {
+            case POPULAR -> send("GET /films/popular", "GET", "/films/popular?count=10");
+            case FILM -> send("GET /films/{id}", "GET", "/films/" + filmPopularity.sample(random));
+            case PAGE -> send("GET /films?limit", "GET", "/films?limit=100&view=compact");
+            case LIKE -> {
+                long filmId = filmPopularity.sample(random);
+                long key = DataSeeder.likeKey(filmId, userId);
+                String path = "/films/" + filmId + "/like/" + userId;
+                // putIfAbsent и replace атомарны по ключу; пара с незавершённым запросом пропускается
+                if (likes.putIfAbsent(key, LikeState.LIKING) == null) {
+                    send("PUT /films/{id}/like/{userId}", "PUT", path);
+                    likes.put(key, LikeState.LIKED);
+                } else if (likes.replace(key, LikeState.LIKED, LikeState.UNLIKING)) {
+                    send("DELETE /films/{id}/like/{userId}", "DELETE", path);
+                    likes.remove(key);
+                }
+            }
+            case FRIENDS -> send("GET /users/{id}/friends", "GET", "/users/" + userId + "/friends");
+            case COMMON -> send("GET /users/{id}/friends/common/{otherId}", "GET",
+                    "/users/" + userId + "/friends/common/" + userActivity.sample(random));
+        }
+    }
+
+    private void send(String endpoint, String method, String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long started = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() < 300;
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsed = System.nanoTime() - started;
+        if (recording) {
+            histograms.computeIfAbsent(endpoint, key -> new LatencyHistogram()).record(elapsed, success);
+        }
+    }
+
+    private List<Measurement> report(double seconds) {
+        List<Measurement> measurements = new ArrayList<>();
+        String format = "%-42s %10s %8s %12s %9s %9s %9s %9s%n";
+        System.out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        long requests = 0;
+        long errors = 0;
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            requests += histogram.count();
+            errors += histogram.errors();
+            Measurement measurement = new Measurement(threads, entry.getKey(), histogram.count(), histogram.errors(),
+                    histogram.count() / seconds, histogram.percentile(50), histogram.percentile(99),
+                    histogram.percentile(99.9), histogram.max());
+            System.out.printf(format, entry.getKey(), measurement.requests(), measurement.errors(),
+                    "%.1f".formatted(measurement.throughput()), millis(measurement.p50()), millis(measurement.p99()),
+                    millis(measurement.p999()), millis(measurement.max()));
+            measurements.add(measurement);
+        }
+        System.out.printf("Всего: %d запросов, %d ошибок, %.1f req/s%n", requests, errors, requests / seconds);
+        return measurements;
+    }
+
+    /**
+     * Сводка по эндпоинтам: пропускная способность и хвосты задержек в каждом режиме потоков.
+     */
+    private static void compare(List<Measurement> measurements) {
+        Map<String, Map<String, Measurement>> byEndpoint = new LinkedHashMap<>();
+        for (Measurement measurement : measurements) {
+            byEndpoint.computeIfAbsent(measurement.endpoint(), key -> new LinkedHashMap<>())
+                    .put(measurement.threads(), measurement);
+        }
+        String format = "%-42s %-9s %12s %9s %9s %9s%n";
+        System.out.println("Сравнение режимов потоков:");
+        System.out.printf(format, "endpoint", "threads", "req/s", "p99 ms", "p999 ms", "errors");
+        byEndpoint.forEach((endpoint, modes) -> modes.values().forEach(measurement ->
+                System.out.printf(format, endpoint, measurement.threads(),
+                        "%.1f".formatted(measurement.throughput()), millis(measurement.p99()),
+                        millis(measurement.p999()), measurement.errors())));
+    }
+
+    private static void writeReport(LoadTestConfig config, List<Measurement> measurements) throws IOException {
+        if (config.report() == null) {
+            return;
+        }
+        Path path = Path.of(config.report());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("threads,endpoint,requests,errors,throughput_rps,p50_ms,p99_ms,p999_ms,max_ms");
+            for (Measurement m : measurements) {
+                writer.println(String.join(",", m.threads(), m.endpoint(), String.valueOf(m.requests()),
+                        String.valueOf(m.errors()), "%.1f".formatted(m.throughput()), millis(m.p50()),
+                        millis(m.p99()), millis(m.p999()), millis(m.max())));
+            }
+        }
+        System.out.println("Отчёт: " + path.toAbsolutePath());
+    }
+
+    private static String millis(long nanos) {
+        return "%.2f".formatted(nanos / 1e6);
+    }
+
+    /**
+     * Переключение лайка атомарно по ключу: пока запрос по паре не завершён, другой поток её не трогает,
+     * иначе PUT и DELETE одной пары могли бы дойти до приложения в обратном порядке.
+     */
+    private enum LikeState {
+        LIKED, LIKING, UNLIKING
+    }
+
+    record Measurement(String threads, String endpoint, long requests, long errors, double throughput,
+                       long p50, long p99, long p999, long max) {
+    }
+}
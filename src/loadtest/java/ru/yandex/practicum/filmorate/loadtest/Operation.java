@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Виды запросов в смеси нагрузки. Лайк переключается: на уже лайкнутую пару уходит DELETE, иначе PUT.
+ */
+public enum Operation {
+    POPULAR("popular"),
+    FILM("film"),
+    PAGE("page"),
+    LIKE("like"),
+    FRIENDS("friends"),
+    COMMON("common");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public static Operation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equalsIgnoreCase(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестная операция: " + key));
+    }
+}
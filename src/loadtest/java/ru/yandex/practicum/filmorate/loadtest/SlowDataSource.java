@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Имитация медленной базы: после выдачи соединения из пула поток ждёт заданное время, удерживая соединение,
+ * как при долгом сетевом обмене с сервером БД. Задержка включается после засева данных.
+ */
+class SlowDataSource extends DelegatingDataSource {
+    private volatile long latencyNanos;
+
+    SlowDataSource(DataSource delegate) {
+        super(delegate);
+    }
+
+    void setLatency(Duration latency) {
+        latencyNanos = latency.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        long latency = latencyNanos;
+        if (latency > 0) {
+            LockSupport.parkNanos(latency);
+        }
+        return connection;
+    }
+
+    /**
+     * Оборачивает пул соединений приложения; сама обёртка доступна через {@link #get()}.
+     */
+    static class Installer implements BeanPostProcessor {
+        private SlowDataSource dataSource;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource delegate && !(bean instanceof SlowDataSource)) {
+                dataSource = new SlowDataSource(delegate);
+                return dataSource;
+            }
+            return bean;
+        }
+
+        SlowDataSource get() {
+            return dataSource;
+        }
+    }
+}
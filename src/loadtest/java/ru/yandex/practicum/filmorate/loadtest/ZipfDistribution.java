@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Распределение Ципфа на 1..n: P(k) ~ 1 / k^s. Выборка — двоичный поиск по предвычисленной функции распределения.
+ */
+public class ZipfDistribution {
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+
+    public long sample(SplittableRandom random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+}
@@ -1,16 +1,35 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BrowseFilter;
+import ru.yandex.practicum.filmorate.model.BrowseResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.service.BrowseService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
 import ru.yandex.practicum.filmorate.validation.ValidationGroups;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -18,7 +37,13 @@ import java.util.List;
 @RequiredArgsConstructor
 @Validated
 public class FilmController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final FilmService filmService;
+    private final RecommendationService recommendationService;
+    private final SearchService searchService;
+    private final BrowseService browseService;
+    private final ObjectMapper objectMapper;
 
     // --- STORAGE операции
     @PostMapping
@@ -40,9 +65,43 @@ public class FilmController {
     }
 
     @GetMapping
-    public Collection<Film> getAll() {
-        log.debug("GET /films");
-        return filmService.getAll();
+    public ResponseEntity<? extends Collection<Film>> getAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Positive @Max(Pagination.MAX_LIMIT) Integer limit,
+            @RequestParam(defaultValue = "full") String view) {
+        log.debug("GET /films?after={}&limit={}&view={}", after, limit, view);
+        FilmView filmView = FilmView.from(view);
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(filmService.getAll(filmView));
+        }
+        int pageSize = Pagination.limit(limit);
+        return Pagination.page(
+                filmService.getPage(Pagination.decodeCursor(after), pageSize, filmView), pageSize, Film::getId);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.debug("GET /films/export");
+        ObjectWriter writer = objectMapper.writerFor(Film.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            // поток ответа закрывает контейнер, генератор только сбрасывает в него буфер
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                filmService.exportAll(film -> {
+                    try {
+                        writer.writeValue(generator, film);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
     }
 
     // --- SERVICE операции
@@ -58,9 +117,60 @@ public class FilmController {
         filmService.removeLike(userId, filmId);
     }
 
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<List<Long>> getLikes(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Positive @Max(Pagination.MAX_LIMIT) Integer limit) {
+        log.debug("GET /films/{}/likes?after={}&limit={}", id, after, limit);
+        int pageSize = Pagination.limit(limit);
+        return Pagination.page(
+                filmService.getLikes(id, Pagination.decodeCursor(after), pageSize), pageSize, Long::longValue);
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam @NotBlank String q,
+                             @RequestParam(defaultValue = "10") @Positive @Max(Pagination.MAX_LIMIT) int limit,
+                             @RequestParam(defaultValue = "full") String view) {
+        log.debug("GET /films/search?q={}&limit={}&view={}", q, limit, view);
+        return searchService.search(q, limit, FilmView.from(view));
+    }
+
+    @GetMapping("/browse")
+    public ResponseEntity<BrowseResult> browse(
+            @RequestParam(required = false) Set<Long> genres,
+            @RequestParam(required = false) Set<Long> mpa,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Positive @Max(Pagination.MAX_LIMIT) Integer limit,
+            @RequestParam(defaultValue = "full") String view) {
+        log.debug("GET /films/browse?genres={}&mpa={}&yearFrom={}&yearTo={}&after={}&limit={}&view={}",
+                genres, mpa, yearFrom, yearTo, after, limit, view);
+        int pageSize = Pagination.limit(limit);
+        BrowseResult result = browseService.browse(new BrowseFilter(genres, mpa, yearFrom, yearTo),
+                Pagination.decodeCursor(after), pageSize, FilmView.from(view));
+        if (result.nextAfter() == null) {
+            return ResponseEntity.ok(result);
+        }
+        return Pagination.withNext(result, result.nextAfter(), pageSize);
+    }
+
     @GetMapping("/popular")
-    public List<Film> getPopular(@RequestParam(defaultValue = "10") @Positive int count) {
-        log.debug("GET /films/popular?count={}", count);
-        return filmService.getPopularFilms(count);
+    public List<Film> getPopular(@RequestParam(defaultValue = "10") @Positive int count,
+                                 @RequestParam(required = false) Integer genreId,
+                                 @RequestParam(required = false) Long mpaId,
+                                 @RequestParam(required = false) Integer year,
+                                 @RequestParam(defaultValue = "full") String view) {
+        log.debug("GET /films/popular?count={}&genreId={}&mpaId={}&year={}&view={}", count, genreId, mpaId, year, view);
+        return filmService.getPopularFilms(count, new PopularFilter(genreId, mpaId, year), FilmView.from(view));
+    }
+
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilar(@PathVariable Long id,
+                                 @RequestParam(defaultValue = "10") @Positive int count,
+                                 @RequestParam(defaultValue = "full") String view) {
+        log.debug("GET /films/{}/similar?count={}&view={}", id, count, view);
+        return recommendationService.getSimilarFilms(id, count, FilmView.from(view));
     }
 }
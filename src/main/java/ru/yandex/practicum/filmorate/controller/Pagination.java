@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Курсорная пагинация: курсор кодирует id последнего элемента страницы,
+ * ссылка на следующую страницу передаётся в заголовке Link.
+ */
+public class Pagination {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String PREFIX = "id:";
+
+    private Pagination() {
+    }
+
+    public static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new ValidationException("Некорректный курсор пагинации: " + cursor);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор пагинации: " + cursor);
+        }
+    }
+
+    public static int limit(Integer limit) {
+        return limit != null ? limit : DEFAULT_LIMIT;
+    }
+
+    public static <T> ResponseEntity<List<T>> page(List<T> items, int limit, ToLongFunction<T> idExtractor) {
+        if (items.size() < limit) {
+            return ResponseEntity.ok(items);
+        }
+        return withNext(items, idExtractor.applyAsLong(items.get(items.size() - 1)), limit);
+    }
+
+    /**
+     * Ответ с произвольным телом и ссылкой на страницу после lastId.
+     */
+    public static <B> ResponseEntity<B> withNext(B body, long lastId, int limit) {
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", encodeCursor(lastId))
+                .replaceQueryParam("limit", limit)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(body);
+    }
+}
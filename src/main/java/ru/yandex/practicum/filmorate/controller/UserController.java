@@ -1,21 +1,30 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.validation.ValidationGroups;
 
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
+@Validated
 public class UserController {
     private final UserService userService;
+    private final RecommendationService recommendationService;
 
     // --- STORAGE операции
     @PostMapping
@@ -37,9 +46,15 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> getAll() {
-        log.debug("GET /users");
-        return userService.getAll();
+    public ResponseEntity<? extends Collection<User>> getAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Positive @Max(Pagination.MAX_LIMIT) Integer limit) {
+        log.debug("GET /users?after={}&limit={}", after, limit);
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.getAll());
+        }
+        int pageSize = Pagination.limit(limit);
+        return Pagination.page(userService.getPage(Pagination.decodeCursor(after), pageSize), pageSize, User::getId);
     }
 
     // --- SERVICE операции
@@ -66,4 +81,20 @@ public class UserController {
         log.debug("GET /users/{}/friends/common/{}", id, otherId);
         return userService.getCommonFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") @Positive @Max(Pagination.MAX_LIMIT) int limit) {
+        log.debug("GET /users/{}/friends/suggestions?limit={}", id, limit);
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long id,
+                                         @RequestParam(defaultValue = "10") @Positive int count,
+                                         @RequestParam(defaultValue = "full") String view) {
+        log.debug("GET /users/{}/recommendations?count={}&view={}", id, count, view);
+        return recommendationService.getRecommendations(id, count, FilmView.from(view));
+    }
 }
@@ -1,32 +1,165 @@
 package ru.yandex.practicum.filmorate.dal;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Primary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.dal.mapper.FilmRowMapper;
-import ru.yandex.practicum.filmorate.dal.mapper.FilmWithDetailsRowMapper;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.LikeOperationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.FacetedPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FacetedPopularityIndex.Facets;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
 
+import java.sql.Array;
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Repository
 @RequiredArgsConstructor
-@Primary
 public class FilmDbStorage implements FilmStorage {
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final int MAX_REPLAY_ROUNDS = 100;
+    private static final long REPLAY_PAUSE_NANOS = 1_000_000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final FilmDetailsLoader filmDetailsLoader;
+    private volatile FacetedPopularityIndex popularityIndex = new FacetedPopularityIndex();
+    // число изменений likes_count по фильму, начатых, но ещё не применённых к индексу
+    private final Map<Long, Integer> pendingLikesCounts = new ConcurrentHashMap<>();
+    // версии фильмов, изменённых во время сборки индекса; null — сборка не идёт
+    private volatile Map<Long, Long> changedDuringRebuild;
+    // ReentrantLock, а не synchronized: сборка читает БД, а виртуальный поток в synchronized закрепил бы носитель
+    private final Lock rebuildLock = new ReentrantLock();
+
+    /**
+     * Собирает индекс популярности заново и подменяет им работающий, поэтому запросы топа во время сборки
+     * видят старый индекс. Фильмы, изменённые во время сборки, перечитываются из БД уже в новый индекс.
+     * <p>
+     * Снимок из БД может уже учитывать лайк, приращение которого ещё не применено после коммита. Поэтому
+     * изменения отслеживаются до конца перечитывания, а значение фильма принимается, только если у него нет
+     * незавершённых изменений likes_count и за время чтения он не менялся; иначе фильм перечитывается снова.
+     */
+    @PostConstruct
+    public void rebuildPopularityIndex() {
+        rebuildLock.lock();
+        Map<Long, Long> changed = new ConcurrentHashMap<>();
+        changedDuringRebuild = changed;
+        try {
+            pendingLikesCounts.keySet().forEach(filmId -> changed.merge(filmId, 1L, Long::sum));
+            IndexEntries entries = loadIndexEntries("");
+            popularityIndex = FacetedPopularityIndex.build(entries.likes(), entries.facets());
+
+            // изменения, начатые после чтения снимка, в него не попали и применятся поверх как обычно
+            Set<Long> replayed = Set.copyOf(changed.keySet());
+            int unsettled = replay(replayed, changed);
+            if (unsettled > 0) {
+                log.warn("Не удалось перечитать {} фильмов, изменявшихся во время сборки индекса популярности",
+                        unsettled);
+            }
+            log.info("Индекс популярности построен: {} фильмов, перечитано изменённых во время сборки: {}",
+                    entries.likes().size(), replayed.size());
+        } finally {
+            changedDuringRebuild = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    private int replay(Set<Long> filmIds, Map<Long, Long> changed) {
+        Set<Long> remaining = new HashSet<>(filmIds);
+        for (int round = 0; !remaining.isEmpty() && round < MAX_REPLAY_ROUNDS; round++) {
+            if (round > 0) {
+                LockSupport.parkNanos(REPLAY_PAUSE_NANOS);
+            }
+            Map<Long, Long> versions = new HashMap<>();
+            remaining.stream()
+                    .filter(filmId -> !pendingLikesCounts.containsKey(filmId))
+                    .forEach(filmId -> versions.put(filmId, changed.getOrDefault(filmId, 0L)));
+            if (versions.isEmpty()) {
+                continue;
+            }
+
+            IndexEntries replay = loadIndexEntries("WHERE film_id = ANY(?)",
+                    (Object) versions.keySet().toArray(Long[]::new));
+            replay.facets().forEach(popularityIndex::setFacets);
+            replay.likes().forEach(popularityIndex::put);
+            versions.forEach((filmId, version) -> {
+                if (!pendingLikesCounts.containsKey(filmId) && version.equals(changed.getOrDefault(filmId, 0L))) {
+                    remaining.remove(filmId);
+                }
+            });
+        }
+        return remaining.size();
+    }
+
+    private IndexEntries loadIndexEntries(String condition, Object... args) {
+        Map<Long, SortedLongSet.Builder> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres " + condition, rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), id -> SortedLongSet.builder())
+                    .add(rs.getLong("genre_id"));
+        }, args);
+
+        String sql = "SELECT film_id, likes_count, mpa_id, EXTRACT(YEAR FROM release_date) AS release_year FROM films "
+                + condition;
+        Map<Long, Long> likes = new HashMap<>();
+        Map<Long, Facets> facets = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long filmId = rs.getLong("film_id");
+            SortedLongSet.Builder genreIds = genres.get(filmId);
+            likes.put(filmId, rs.getLong("likes_count"));
+            facets.put(filmId, new Facets(genreIds != null ? genreIds.build() : SortedLongSet.EMPTY,
+                    rs.getObject("mpa_id", Long.class), rs.getObject("release_year", Integer.class)));
+        }, args);
+        return new IndexEntries(likes, facets);
+    }
+
+    // сначала отметка, потом изменение: отмеченный фильм будет перечитан после подмены индекса
+    private void updateIndex(long filmId, Consumer<FacetedPopularityIndex> action) {
+        markChanged(filmId);
+        action.accept(popularityIndex);
+    }
+
+    private void markChanged(long filmId) {
+        Map<Long, Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.merge(filmId, 1L, Long::sum);
+        }
+    }
 
     @Override
     public Film addFilm(Film film) {
@@ -52,6 +185,7 @@ public class FilmDbStorage implements FilmStorage {
         long filmId = keyHolder.getKey().longValue();
         film.setId(filmId);
         saveGenres(film);
+        updateIndex(filmId, index -> index.setFacets(filmId, Facets.of(film)));
         return film;
     }
 
@@ -78,6 +212,7 @@ public class FilmDbStorage implements FilmStorage {
 
         jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
         saveGenres(film);
+        updateIndex(film.getId(), index -> index.setFacets(film.getId(), Facets.of(film)));
         return film;
     }
 
@@ -89,48 +224,167 @@ public class FilmDbStorage implements FilmStorage {
                f.description,
                f.release_date,
                f.duration,
+               f.likes_count,
                f.mpa_id,
-               m.code AS mpa_name
+               m.code AS mpa_name,
+               (SELECT ARRAY_AGG(g.genre_id ORDER BY g.genre_id)
+                FROM film_genres fg
+                JOIN genres g ON fg.genre_id = g.genre_id
+                WHERE fg.film_id = f.film_id) AS genre_ids,
+               (SELECT ARRAY_AGG(g.name ORDER BY g.genre_id)
+                FROM film_genres fg
+                JOIN genres g ON fg.genre_id = g.genre_id
+                WHERE fg.film_id = f.film_id) AS genre_names,
+               (SELECT ARRAY_AGG(fl.user_id ORDER BY fl.user_id)
+                FROM film_likes fl
+                WHERE fl.film_id = f.film_id) AS like_ids
         FROM films f
         LEFT JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
         WHERE f.film_id = ?
         """;
 
-        List<Film> films = jdbcTemplate.query(sql, new FilmRowMapper(), id);
+        FilmRowMapper filmRowMapper = new FilmRowMapper();
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Film film = filmRowMapper.mapRow(rs, rowNum);
+            Object[] genreIds = toArray(rs.getArray("genre_ids"));
+            Object[] genreNames = toArray(rs.getArray("genre_names"));
+            for (int i = 0; i < genreIds.length; i++) {
+                film.getGenres().add(new Genre(((Number) genreIds[i]).intValue(), (String) genreNames[i]));
+            }
+            Object[] likeIds = toArray(rs.getArray("like_ids"));
+            SortedLongSet.Builder likes = SortedLongSet.builder(likeIds.length);
+            for (Object userId : likeIds) {
+                likes.add(((Number) userId).longValue());
+            }
+            film.setLikes(likes.build().asSet());
+            return film;
+        }, id).stream().findFirst();
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM films WHERE film_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
 
-        if (films.isEmpty()) {
-            return Optional.empty();
+    @Override
+    public List<Film> getByIds(Collection<Long> ids, FilmView view) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return queryFilms(view, "WHERE f.film_id = ANY(?)", (Object) ids.toArray(Long[]::new));
+    }
 
-        Film film = films.get(0);
-        loadGenres(film);
-        loadLikes(film);
-        return Optional.of(film);
+    @Override
+    public Collection<Film> getAll(FilmView view) {
+        return queryFilms(view, "");
     }
 
+    @Override
+    public List<Film> getPage(long afterId, int limit, FilmView view) {
+        return queryFilms(view, "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?", afterId, limit);
+    }
 
     @Override
-    public Collection<Film> getAll() {
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
         String sql = """
+                SELECT user_id
+                FROM film_likes
+                WHERE film_id = ? AND user_id > ?
+                ORDER BY user_id
+                LIMIT ?
+                """;
+        return jdbcTemplate.queryForList(sql, Long.class, filmId, afterUserId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportAll(Consumer<Film> consumer) {
+        String filmsSql = """
         SELECT f.film_id,
                f.name,
                f.description,
                f.release_date,
                f.duration,
+               f.likes_count,
                f.mpa_id,
                m.code AS mpa_name,
-               GROUP_CONCAT(DISTINCT g.genre_id) AS genre_ids,
-               GROUP_CONCAT(DISTINCT g.name) AS genre_names,
-               GROUP_CONCAT(DISTINCT fl.user_id) AS like_ids
+               g.genre_id,
+               g.name AS genre_name
         FROM films f
         LEFT JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
         LEFT JOIN film_genres fg ON f.film_id = fg.film_id
         LEFT JOIN genres g ON fg.genre_id = g.genre_id
-        LEFT JOIN film_likes fl ON f.film_id = fl.film_id
-        GROUP BY f.film_id
+        ORDER BY f.film_id, g.genre_id
         """;
+        String likesSql = "SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id";
+
+        // два курсора, упорядоченных по film_id, сливаются без накопления каталога в памяти;
+        // REPEATABLE READ даёт обоим курсорам один снимок данных
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement filmsStatement = prepareForwardOnly(connection, filmsSql);
+                 PreparedStatement likesStatement = prepareForwardOnly(connection, likesSql);
+                 ResultSet films = filmsStatement.executeQuery();
+                 ResultSet likes = likesStatement.executeQuery()) {
+                FilmRowMapper filmRowMapper = new FilmRowMapper();
+                boolean hasLike = likes.next();
+                Film current = null;
 
-        return jdbcTemplate.query(sql, new FilmWithDetailsRowMapper());
+                while (films.next()) {
+                    long filmId = films.getLong("film_id");
+                    if (current == null || current.getId() != filmId) {
+                        if (current != null) {
+                            consumer.accept(current);
+                        }
+                        current = filmRowMapper.mapRow(films, films.getRow());
+
+                        SortedLongSet.Builder likeIds = SortedLongSet.builder();
+                        while (hasLike && likes.getLong("film_id") < filmId) {
+                            hasLike = likes.next();
+                        }
+                        while (hasLike && likes.getLong("film_id") == filmId) {
+                            likeIds.add(likes.getLong("user_id"));
+                            hasLike = likes.next();
+                        }
+                        current.setLikes(likeIds.build().asSet());
+                    }
+
+                    int genreId = films.getInt("genre_id");
+                    if (!films.wasNull()) {
+                        current.getGenres().add(new Genre(genreId, films.getString("genre_name")));
+                    }
+                }
+
+                if (current != null) {
+                    consumer.accept(current);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Long, SortedLongSet> getLikedFilmsByUser() {
+        // порядок совпадает с индексом idx_film_likes_user, фильмы пользователя идут подряд и по возрастанию
+        String sql = "SELECT user_id, film_id FROM film_likes ORDER BY user_id, film_id";
+        Map<Long, SortedLongSet.Builder> builders = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            builders.computeIfAbsent(rs.getLong("user_id"), id -> SortedLongSet.builder())
+                    .add(rs.getLong("film_id"));
+        });
+        Map<Long, SortedLongSet> result = new HashMap<>(builders.size() * 2);
+        builders.forEach((userId, films) -> result.put(userId, films.build()));
+        return result;
+    }
+
+    private static Object[] toArray(Array array) throws SQLException {
+        return array != null ? (Object[]) array.getArray() : new Object[0];
+    }
+
+    private PreparedStatement prepareForwardOnly(Connection connection, String sql) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(EXPORT_FETCH_SIZE);
+        return ps;
     }
 
     private void saveGenres(Film film) {
@@ -147,38 +401,22 @@ public class FilmDbStorage implements FilmStorage {
         jdbcTemplate.batchUpdate(sql, batchArgs);
     }
 
-    private void loadGenres(Film film) {
-        String sql = """
-            SELECT g.genre_id,
-                   g.name AS genre_name
-            FROM genres g
-            JOIN film_genres fg ON g.genre_id = fg.genre_id
-            WHERE fg.film_id = ?
-            ORDER BY g.genre_id
-            """;
-
-        List<Genre> genres = jdbcTemplate.query(sql, (rs, rowNum) ->
-                        new Genre(rs.getInt("genre_id"), rs.getString("genre_name")),
-                film.getId());
-
-        film.setGenres(genres);
-    }
-
-    private void loadLikes(Film film) {
-        String sql = "SELECT user_id FROM film_likes WHERE film_id = ?";
-        Set<Long> likes = Set.copyOf(
-                jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong("user_id"), film.getId())
-        );
-        film.setLikes(likes);
-    }
-
     @Override
+    @Transactional
     public void addLike(Long filmId, Long userId) {
         String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+        try {
+            jdbcTemplate.update(sql, filmId, userId);
+        } catch (DuplicateKeyException e) {
+            throw new LikeOperationException("Пользователь уже ставил лайк этому фильму.");
+        }
+
+        updateLikesCounts(Map.of(filmId, 1L), () ->
+                jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE film_id = ?", filmId));
     }
 
     @Override
+    @Transactional
     public void removeLike(Long filmId, Long userId) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
         int deletedRows = jdbcTemplate.update(sql, filmId, userId);
@@ -186,32 +424,160 @@ public class FilmDbStorage implements FilmStorage {
         if (deletedRows == 0) {
             throw new LikeOperationException("Пользователь не добавлял лайк к данному фильму");
         }
+
+        updateLikesCounts(Map.of(filmId, -1L), () -> jdbcTemplate.update("""
+                UPDATE films
+                SET likes_count = likes_count - 1
+                WHERE film_id = ? AND likes_count > 0
+                """, filmId));
+    }
+
+    @Override
+    @Transactional
+    public List<LikeChange> applyLikeChanges(Collection<LikeChange> changes) {
+        List<LikeChange> likes = new ArrayList<>();
+        List<LikeChange> unlikes = new ArrayList<>();
+        changes.forEach(change -> (change.liked() ? likes : unlikes).add(change));
+
+        String insertSql = """
+                INSERT INTO film_likes (film_id, user_id)
+                SELECT ?, ?
+                WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)
+                """;
+        int[] inserted = jdbcTemplate.batchUpdate(insertSql, likes.stream()
+                .map(like -> new Object[]{like.filmId(), like.userId(), like.filmId(), like.userId()})
+                .toList());
+        int[] deleted = jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?",
+                unlikes.stream()
+                        .map(unlike -> new Object[]{unlike.filmId(), unlike.userId()})
+                        .toList());
+
+        List<LikeChange> applied = new ArrayList<>();
+        Map<Long, Long> deltas = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                applied.add(likes.get(i));
+                deltas.merge(likes.get(i).filmId(), 1L, Long::sum);
+            }
+        }
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                applied.add(unlikes.get(i));
+                deltas.merge(unlikes.get(i).filmId(), -1L, Long::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+
+        updateLikesCounts(deltas, () -> jdbcTemplate.batchUpdate(
+                "UPDATE films SET likes_count = GREATEST(likes_count + ?, 0) WHERE film_id = ?",
+                deltas.entrySet().stream()
+                        .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                        .toList()));
+
+        return applied;
+    }
+
+    /**
+     * Меняет likes_count в БД и после коммита — индекс популярности: индекс в памяти не откатывается
+     * вместе с транзакцией. Изменение считается незавершённым от начала записи до применения к индексу,
+     * и сборка индекса не принимает значения таких фильмов из БД.
+     */
+    private void updateLikesCounts(Map<Long, Long> deltas, Runnable update) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        deltas.keySet().forEach(filmId -> {
+            pendingLikesCounts.merge(filmId, 1, Integer::sum);
+            markChanged(filmId);
+        });
+        boolean finishing = false;
+        try {
+            update.run();
+            finishing = true;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                finishLikesCounts(deltas, true);
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    finishLikesCounts(deltas, status == STATUS_COMMITTED);
+                }
+            });
+        } finally {
+            if (!finishing) {
+                finishLikesCounts(deltas, false);
+            }
+        }
+    }
+
+    // сначала приращение и отметка, потом снятие незавершённого изменения
+    private void finishLikesCounts(Map<Long, Long> deltas, boolean committed) {
+        deltas.forEach((filmId, delta) -> {
+            if (committed) {
+                popularityIndex.increment(filmId, delta);
+            }
+            markChanged(filmId);
+            pendingLikesCounts.computeIfPresent(filmId, (id, pending) -> pending > 1 ? pending - 1 : null);
+        });
+    }
+
+    // для тестов: число лайков фильма в индексе популярности
+    long indexedLikes(long filmId) {
+        return popularityIndex.getLikes(filmId);
+    }
+
+    /**
+     * Сверяет films.likes_count с film_likes, исправляет расхождения и перестраивает индекс популярности.
+     *
+     * @return количество исправленных фильмов
+     */
+    public int repairLikesCounts() {
+        // счёт и запись в одном операторе: лайк, закоммиченный между чтением и записью, не затирается
+        int fixed = jdbcTemplate.update("""
+                UPDATE films f
+                SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+                WHERE likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+                """);
+        rebuildPopularityIndex();
+        return fixed;
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
+    public List<Film> getPopularFilms(int count, PopularFilter filter, FilmView view) {
+        List<Long> ids = popularityIndex.top(count, filter);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Film> films = queryFilms(view, "WHERE f.film_id = ANY(?)", (Object) ids.toArray(Long[]::new))
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<Film> queryFilms(FilmView view, String condition, Object... args) {
         String sql = """
         SELECT f.film_id,
                f.name,
                f.description,
                f.release_date,
                f.duration,
+               f.likes_count,
                f.mpa_id,
-               m.code AS mpa_name,
-               GROUP_CONCAT(DISTINCT g.genre_id) AS genre_ids,
-               GROUP_CONCAT(DISTINCT g.name) AS genre_names,
-               GROUP_CONCAT(DISTINCT fl.user_id) AS like_ids,
-               COUNT(DISTINCT fl.user_id) AS likes_count
+               m.code AS mpa_name
         FROM films f
         LEFT JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-        LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-        LEFT JOIN genres g ON fg.genre_id = g.genre_id
-        LEFT JOIN film_likes fl ON f.film_id = fl.film_id
-        GROUP BY f.film_id
-        ORDER BY likes_count DESC, f.film_id ASC
-        LIMIT ?
-        """;
+        """ + condition;
+
+        List<Film> films = jdbcTemplate.query(sql, new FilmRowMapper(), args);
+        return filmDetailsLoader.load(films, view);
+    }
 
-        return jdbcTemplate.query(sql, new FilmWithDetailsRowMapper(), count);
+    private record IndexEntries(Map<Long, Long> likes, Map<Long, Facets> facets) {
     }
 }
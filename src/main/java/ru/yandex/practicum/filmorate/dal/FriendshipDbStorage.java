@@ -1,19 +1,86 @@
 package ru.yandex.practicum.filmorate.dal;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.dal.mapper.UserRowMapper;
 import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendSuggestionIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Связи хранятся в таблице friendships, а чтение идёт из графа в памяти:
+ * граф прогревается при старте и обновляется после каждой успешной записи в БД.
+ * Запись в БД и изменение графа идут под блокировкой пользователя, поэтому конкурирующие добавление
+ * и удаление одной связи применяются к графу в том же порядке, что и к таблице.
+ */
+@Slf4j
 @Repository
-@RequiredArgsConstructor
 public class FriendshipDbStorage implements FriendshipStorage {
+    private static final int LOCK_STRIPES = 64;
+
     private final JdbcTemplate jdbcTemplate;
-    private final UserRowMapper userRowMapper;
+    private final UserStorage userStorage;
+    private final FriendshipGraph graph = new FriendshipGraph();
+    private final FriendSuggestionIndex suggestions;
+    // ReentrantLock, а не synchronized: под блокировкой идёт JDBC, а виртуальный поток в synchronized
+    // не отпускает поток-носитель
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    public FriendshipDbStorage(JdbcTemplate jdbcTemplate,
+                               UserStorage userStorage,
+                               @Value("${filmorate.friends.suggestions.max-degree:1000}") int maxDegree,
+                               @Value("${filmorate.friends.suggestions.cache-size:50}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userStorage = userStorage;
+        this.suggestions = new FriendSuggestionIndex(graph, maxDegree, cacheSize);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void rebuildGraph() {
+        String sql = "SELECT user_id, friend_id FROM friendships ORDER BY user_id, friend_id";
+        Map<Long, SortedLongSet> friendsByUser = jdbcTemplate.query(sql, (ResultSetExtractor<Map<Long, SortedLongSet>>) rs -> {
+            Map<Long, SortedLongSet> result = new HashMap<>();
+            long currentUser = 0;
+            SortedLongSet.Builder friends = null;
+            while (rs.next()) {
+                long userId = rs.getLong("user_id");
+                if (friends == null || userId != currentUser) {
+                    if (friends != null) {
+                        result.put(currentUser, friends.build());
+                    }
+                    currentUser = userId;
+                    friends = SortedLongSet.builder();
+                }
+                friends.add(rs.getLong("friend_id"));
+            }
+            if (friends != null) {
+                result.put(currentUser, friends.build());
+            }
+            return result;
+        });
+        graph.rebuild(friendsByUser);
+        suggestions.invalidateAll();
+        log.info("Граф дружбы загружен: {} пользователей с друзьями", friendsByUser.size());
+    }
 
     @Override
     public void addFriend(long userId, long friendId) {
@@ -21,7 +88,16 @@ public class FriendshipDbStorage implements FriendshipStorage {
                 INSERT INTO friendships (user_id, friend_id, status)
                 VALUES (?, ?, 'CONFIRMED')
                 """;
-        jdbcTemplate.update(sql, userId, friendId);
+        Lock lock = lockFor(userId);
+        lock.lock();
+        try {
+            jdbcTemplate.update(sql, userId, friendId);
+            int degreeBefore = graph.friends(userId).size();
+            graph.add(userId, friendId);
+            suggestions.invalidate(userId, degreeBefore);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -30,32 +106,50 @@ public class FriendshipDbStorage implements FriendshipStorage {
                 DELETE FROM friendships
                 WHERE user_id = ? AND friend_id = ?
                 """;
-        jdbcTemplate.update(sql, userId, friendId);
+        Lock lock = lockFor(userId);
+        lock.lock();
+        try {
+            jdbcTemplate.update(sql, userId, friendId);
+            int degreeBefore = graph.friends(userId).size();
+            graph.remove(userId, friendId);
+            suggestions.invalidate(userId, degreeBefore);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public Collection<User> getFriends(long userId) {
-        String sql = """
-                SELECT u.*
-                FROM users u
-                JOIN friendships f ON u.user_id = f.friend_id
-                WHERE f.user_id = ?
-                """;
-
-        return jdbcTemplate.query(sql, userRowMapper, userId);
+        return hydrate(graph.friends(userId));
     }
 
     @Override
     public Collection<User> getCommonFriends(long userId, long friendId) {
-        String sql = """
-                SELECT u.*
-                FROM users u
-                JOIN friendships f1 ON u.user_id = f1.friend_id
-                JOIN friendships f2 ON u.user_id = f2.friend_id
-                WHERE f1.user_id = ?
-                  AND f2.user_id = ?
-                """;
+        return hydrate(graph.common(userId, friendId));
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(long userId, int limit) {
+        List<Long> ids = suggestions.suggest(userId, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> users = userStorage.getByIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Lock lockFor(long userId) {
+        return locks[(int) ((userId ^ (userId >>> 32)) & (LOCK_STRIPES - 1))];
+    }
 
-        return jdbcTemplate.query(sql, userRowMapper, userId, friendId);
+    private List<User> hydrate(SortedLongSet ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return userStorage.getByIds(ids.asSet());
     }
 }
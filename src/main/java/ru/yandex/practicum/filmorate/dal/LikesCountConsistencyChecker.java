@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.likes.consistency-check.enabled", havingValue = "true", matchIfMissing = true)
+public class LikesCountConsistencyChecker {
+    private final FilmDbStorage filmDbStorage;
+    private final CachingFilmStorage cachingFilmStorage;
+
+    @Scheduled(initialDelayString = "${filmorate.likes.consistency-check.initial-delay:PT10S}",
+            fixedDelayString = "${filmorate.likes.consistency-check.interval:PT1H}")
+    public void check() {
+        int fixed = filmDbStorage.repairLikesCounts();
+        if (fixed > 0) {
+            cachingFilmStorage.invalidateAll();
+            log.warn("Исправлено расхождение счётчика лайков у {} фильмов", fixed);
+        } else {
+            log.debug("Счётчики лайков согласованы с film_likes");
+        }
+    }
+}
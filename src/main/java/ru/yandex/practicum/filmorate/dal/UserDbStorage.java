@@ -2,10 +2,12 @@ package ru.yandex.practicum.filmorate.dal;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.exception.DuplicateEntityException;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
@@ -21,6 +23,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @Primary
 public class UserDbStorage implements UserStorage {
+    private static final String DUPLICATE_USER_MESSAGE = "Пользователь с таким email или логином уже существует";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Override
@@ -32,14 +36,18 @@ public class UserDbStorage implements UserStorage {
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"user_id"});
-            ps.setString(1, user.getEmail());
-            ps.setString(2, user.getLogin());
-            ps.setString(3, user.getName());
-            ps.setDate(4, Date.valueOf(user.getBirthday()));
-            return ps;
-        }, keyHolder);
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, new String[]{"user_id"});
+                ps.setString(1, user.getEmail());
+                ps.setString(2, user.getLogin());
+                ps.setString(3, user.getName());
+                ps.setDate(4, Date.valueOf(user.getBirthday()));
+                return ps;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateEntityException(DUPLICATE_USER_MESSAGE);
+        }
         user.setId(keyHolder.getKey().longValue());
         return user;
     }
@@ -52,13 +60,18 @@ public class UserDbStorage implements UserStorage {
             WHERE user_id = ?
             """;
 
-        int updatedRows = jdbcTemplate.update(sql,
-                user.getEmail(),
-                user.getLogin(),
-                user.getName(),
-                Date.valueOf(user.getBirthday()),
-                user.getId()
-        );
+        int updatedRows;
+        try {
+            updatedRows = jdbcTemplate.update(sql,
+                    user.getEmail(),
+                    user.getLogin(),
+                    user.getName(),
+                    Date.valueOf(user.getBirthday()),
+                    user.getId()
+            );
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateEntityException(DUPLICATE_USER_MESSAGE);
+        }
 
         if (updatedRows == 0) {
             throw new EntityNotFoundException("Пользователь", user.getId());
@@ -73,9 +86,42 @@ public class UserDbStorage implements UserStorage {
         return users.stream().findFirst();
     }
 
+    @Override
+    public List<User> getByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM users WHERE user_id = ANY(?) ORDER BY user_id";
+        return jdbcTemplate.query(sql, new UserRowMapper(), (Object) ids.toArray(Long[]::new));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        String sql = "SELECT * FROM users WHERE email = ?";
+        return jdbcTemplate.query(sql, new UserRowMapper(), email).stream().findFirst();
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        String sql = "SELECT * FROM users WHERE login = ?";
+        return jdbcTemplate.query(sql, new UserRowMapper(), login).stream().findFirst();
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
     @Override
     public Collection<User> getAll() {
         String sql = "SELECT * FROM users";
         return jdbcTemplate.query(sql, new UserRowMapper());
     }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.query(sql, new UserRowMapper(), afterId, limit);
+    }
 }
@@ -23,6 +23,7 @@ public class FilmRowMapper implements RowMapper<Film> {
         }
 
         film.setDuration(rs.getInt("duration"));
+        film.setLikesCount(rs.getLong("likes_count"));
 
         Long mpaId = rs.getLong("mpa_id");
         if (!rs.wasNull()) {
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class DuplicateEntityException extends RuntimeException {
+    public DuplicateEntityException(String message) {
+        super(message);
+    }
+}
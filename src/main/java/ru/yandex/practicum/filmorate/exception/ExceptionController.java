@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -10,10 +12,14 @@ import jakarta.validation.ConstraintViolationException;
 
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class ExceptionController {
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(ValidationException e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         log.warn("Ошибка валидации: {}", e.getMessage());
         return new ErrorResponse("Ошибка валидации", e.getMessage());
     }
@@ -21,6 +27,7 @@ public class ExceptionController {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         String message = e.getBindingResult().getFieldErrors().stream()
                 .map(err -> err.getField() + ": " + err.getDefaultMessage())
                 .reduce((s1, s2) -> s1 + "; " + s2)
@@ -32,6 +39,7 @@ public class ExceptionController {
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleConstraintViolationException(ConstraintViolationException e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         String message = e.getConstraintViolations().stream()
                 .map(cv -> cv.getPropertyPath() + ": " + cv.getMessage())
                 .reduce((s1, s2) -> s1 + "; " + s2)
@@ -43,6 +51,7 @@ public class ExceptionController {
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleEntityNotFoundException(EntityNotFoundException e) {
+        countError(e, HttpStatus.NOT_FOUND);
         log.warn("{} с Id={} не найден", e.getEntityName(), e.getEntityId());
         return new ErrorResponse(
                 "Объект не найден",
@@ -53,6 +62,7 @@ public class ExceptionController {
     @ExceptionHandler(FriendOperationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleFriendOperationException(FriendOperationException e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         return new ErrorResponse("Ошибка работы с друзьями", e.getMessage());
     }
 
@@ -60,14 +70,38 @@ public class ExceptionController {
     @ExceptionHandler(LikeOperationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleOperationException(RuntimeException e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         log.warn("Ошибка операции: {}", e.getMessage());
         return new ErrorResponse("Ошибка операции", e.getMessage());
     }
 
+    @ExceptionHandler(DuplicateEntityException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleDuplicateEntityException(DuplicateEntityException e) {
+        countError(e, HttpStatus.CONFLICT);
+        log.warn("Конфликт данных: {}", e.getMessage());
+        return new ErrorResponse("Конфликт данных", e.getMessage());
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(TooManyRequestsException e) {
+        countError(e, HttpStatus.TOO_MANY_REQUESTS);
+        log.warn("Перегрузка: {}", e.getMessage());
+        return new ErrorResponse("Слишком много запросов", e.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleAllOtherExceptions(Exception e) {
+        countError(e, HttpStatus.INTERNAL_SERVER_ERROR);
         log.error("Непредвиденная ошибка: ", e);
         return new ErrorResponse("Внутренняя ошибка сервера", e.getMessage());
     }
+
+    private void countError(Exception e, HttpStatus status) {
+        meterRegistry.counter("filmorate.http.errors",
+                "exception", e.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+    }
 }
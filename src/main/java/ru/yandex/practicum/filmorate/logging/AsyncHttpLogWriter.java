@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Запись HTTP-журнала в отдельном потоке. Поток запроса только кладёт готовую строку в ограниченную очередь;
+ * при переполнении запись отбрасывается и учитывается в счётчике, а не блокирует запрос.
+ */
+@Slf4j
+@Component
+public class AsyncHttpLogWriter implements HttpLogWriter {
+    private final HttpLogWriter delegate;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public AsyncHttpLogWriter(@Value("${filmorate.logging.http.queue-capacity:10000}") int queueCapacity) {
+        this(new DefaultHttpLogWriter(), queueCapacity);
+    }
+
+    AsyncHttpLogWriter(HttpLogWriter delegate, int queueCapacity) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-log-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> dropped.increment());
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        executor.execute(() -> writeSafely(() -> delegate.write(precorrelation, request)));
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        executor.execute(() -> writeSafely(() -> delegate.write(correlation, response)));
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeSafely(Write write) {
+        try {
+            write.run();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать HTTP-журнал: {}", e.getMessage());
+        }
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+}
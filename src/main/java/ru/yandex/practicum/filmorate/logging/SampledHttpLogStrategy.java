@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.servlet.ServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.attributes.AttributeExtractor;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Стратегия журналирования HTTP: запрос и ответ пишутся одной записью после ответа.
+ * Ответы с ошибкой (status >= always-log-status) пишутся всегда, успешные — с вероятностью sample-rate.
+ * <p>
+ * Выборка решается до обработки запроса: тела запроса и ответа буферизуются только у попавших в неё,
+ * остальные проходят без копирования. Тела попадают в журнал лишь у ошибок, как в
+ * BodyOnlyIfStatusAtLeastStrategy; ошибка вне выборки пишется без тел — их не сохраняли.
+ * <p>
+ * Решение едет вместе с запросом, а не с потоком: при асинхронной обработке (например, StreamingResponseBody
+ * в /films/export) ответ может обрабатываться и писаться в другом потоке. process(request) кладёт его
+ * в атрибут запроса сервлета, а стратегия как {@link AttributeExtractor} переносит его в атрибуты
+ * Logbook, которые видны из обёрток запроса во всех следующих вызовах.
+ * Запрос не из сервлета атрибутов не несёт и в выборку не попадает.
+ */
+@Component
+public class SampledHttpLogStrategy implements Strategy, AttributeExtractor {
+    static final String SAMPLED = "sampled";
+    private static final String SAMPLED_ATTRIBUTE = SampledHttpLogStrategy.class.getName() + "." + SAMPLED;
+
+    private final double sampleRate;
+    private final int alwaysLogStatus;
+
+    public SampledHttpLogStrategy(@Value("${filmorate.logging.http.sample-rate:0.01}") double sampleRate,
+                                  @Value("${filmorate.logging.http.always-log-status:400}") int alwaysLogStatus) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Доля журналируемых запросов должна быть от 0 до 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.alwaysLogStatus = alwaysLogStatus;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        if (request instanceof ServletRequest servletRequest
+                && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            servletRequest.setAttribute(SAMPLED_ATTRIBUTE, true);
+            return request.withBody();
+        }
+        return request.withoutBody();
+    }
+
+    @Override
+    public HttpAttributes extract(HttpRequest request) {
+        return request instanceof ServletRequest servletRequest
+                && Boolean.TRUE.equals(servletRequest.getAttribute(SAMPLED_ATTRIBUTE))
+                ? HttpAttributes.of(SAMPLED, true)
+                : HttpAttributes.EMPTY;
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // запрос откладывается до ответа: без статуса неизвестно, нужно ли его писать
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isSampled(request) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        boolean sample = isSampled(request);
+        if (response.getStatus() >= alwaysLogStatus) {
+            sink.writeBoth(correlation, request, response);
+        } else if (sample) {
+            sink.writeBoth(correlation, request.withoutBody(), response.withoutBody());
+        }
+    }
+
+    private static boolean isSampled(HttpRequest request) {
+        return Boolean.TRUE.equals(request.getAttributes().get(SAMPLED));
+    }
+}
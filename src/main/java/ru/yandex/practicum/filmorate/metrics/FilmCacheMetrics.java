@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+
+/**
+ * Статистика кэша фильмов по id; значения снимаются в момент сбора метрик.
+ */
+@Component
+@RequiredArgsConstructor
+public class FilmCacheMetrics implements MeterBinder {
+    private final CachingFilmStorage cachingFilmStorage;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.cache.films.requests", cachingFilmStorage, c -> c.getStats().hits())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.films.requests", cachingFilmStorage, c -> c.getStats().misses())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.films.evictions", cachingFilmStorage, c -> c.getStats().evictions())
+                .register(registry);
+        Gauge.builder("filmorate.cache.films.size", cachingFilmStorage, c -> c.getStats().size())
+                .register(registry);
+    }
+}
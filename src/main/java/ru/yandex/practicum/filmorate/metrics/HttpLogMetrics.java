@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.logging.AsyncHttpLogWriter;
+
+/**
+ * Состояние очереди HTTP-журнала: длина и число отброшенных при переполнении записей.
+ */
+@Component
+@RequiredArgsConstructor
+public class HttpLogMetrics implements MeterBinder {
+    private final AsyncHttpLogWriter writer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.http.log.dropped", writer, AsyncHttpLogWriter::getDropped)
+                .register(registry);
+        Gauge.builder("filmorate.http.log.queue", writer, AsyncHttpLogWriter::getQueueSize)
+                .register(registry);
+    }
+}
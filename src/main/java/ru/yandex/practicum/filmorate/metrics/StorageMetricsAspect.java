@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймеры и счётчики строк для методов хранилищ и сервисов.
+ * filmorate.storage.latency / filmorate.service.latency — время вызова с тегами class, method, outcome, exception;
+ * filmorate.storage.rows — сколько записей вернул метод хранилища.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+    static final String STORAGE_TIMER = "filmorate.storage.latency";
+    static final String SERVICE_TIMER = "filmorate.service.latency";
+    static final String STORAGE_ROWS = "filmorate.storage.rows";
+
+    private final MeterRegistry registry;
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> rows = new ConcurrentHashMap<>();
+
+    @Around("execution(* ru.yandex.practicum.filmorate.storage.FilmStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.UserStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.FriendshipStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.GenreStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.MpaRatingStorage.*(..))")
+    public Object timeStorage(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = time(STORAGE_TIMER, joinPoint);
+        int count = rowCount(result);
+        if (count >= 0) {
+            MeterKey key = MeterKey.of(STORAGE_ROWS, joinPoint, null);
+            rows.computeIfAbsent(key, k -> DistributionSummary.builder(STORAGE_ROWS)
+                            .baseUnit("rows")
+                            .tag("class", k.className())
+                            .tag("method", k.method())
+                            .register(registry))
+                    .record(count);
+        }
+        return result;
+    }
+
+    @Around("within(ru.yandex.practicum.filmorate.service..*)"
+            + " && @within(org.springframework.stereotype.Service)"
+            + " && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        String exception = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            timers.computeIfAbsent(MeterKey.of(name, joinPoint, exception), key -> Timer.builder(key.name())
+                            .tag("class", key.className())
+                            .tag("method", key.method())
+                            .tag("outcome", key.exception() == null ? "success" : "error")
+                            .tag("exception", key.exception() == null ? "none" : key.exception())
+                            .register(registry))
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static int rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return -1;
+    }
+
+    private record MeterKey(String name, String className, String method, String exception) {
+        static MeterKey of(String name, ProceedingJoinPoint joinPoint, String exception) {
+            return new MeterKey(name, joinPoint.getTarget().getClass().getSimpleName(),
+                    joinPoint.getSignature().getName(), exception);
+        }
+    }
+}
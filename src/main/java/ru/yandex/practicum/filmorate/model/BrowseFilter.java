@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Set;
+
+/**
+ * Фильтр каталога: любой из жанров, любой из рейтингов MPA и диапазон годов выхода включительно.
+ * Пустое множество или null — фильтр по полю не задан.
+ */
+public record BrowseFilter(Set<Long> genreIds, Set<Long> mpaIds, Integer yearFrom, Integer yearTo) {
+    public BrowseFilter {
+        genreIds = genreIds != null ? Set.copyOf(genreIds) : Set.of();
+        mpaIds = mpaIds != null ? Set.copyOf(mpaIds) : Set.of();
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new ValidationException("Начальный год больше конечного: " + yearFrom + " > " + yearTo);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Страница каталога: фильмы, общее число подходящих под фильтр и счётчики по id жанров и рейтингов MPA.
+ * {@code nextAfter} — курсор следующей страницы по id из индекса или null, если страница последняя;
+ * в ответ не сериализуется, а уходит в заголовок Link.
+ */
+public record BrowseResult(List<Film> films, int total, Map<Long, Integer> genres, Map<Long, Integer> mpa,
+                           @JsonIgnore Long nextAfter) {
+}
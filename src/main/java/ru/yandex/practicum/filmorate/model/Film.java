@@ -1,9 +1,13 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.With;
 import ru.yandex.practicum.filmorate.validation.ReleaseDateConstraint;
 import ru.yandex.practicum.filmorate.validation.ValidationGroups;
 
@@ -17,6 +21,8 @@ import java.util.Set;
  * Film.
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @EqualsAndHashCode(of = "id")
 public class Film {
     @Null(groups = ValidationGroups.OnCreate.class)
@@ -40,5 +46,23 @@ public class Film {
 
     @JsonProperty("mpa")
     private MpaRating rating;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Set<Long> likes = new HashSet<>();
+
+    @With
+    private long likesCount;
+
+    /**
+     * Независимая копия: список жанров, лайки, жанры и рейтинг с исходным фильмом не разделяются.
+     */
+    public Film copy() {
+        Film copy = new Film(id, name, description, releaseDate, duration, null,
+                rating == null ? null : new MpaRating(rating.getId(), rating.getName()),
+                likes == null ? null : new HashSet<>(likes), likesCount);
+        copy.setGenres(genres == null ? null : new ArrayList<>(genres.stream()
+                .map(genre -> new Genre(genre.getId(), genre.getName()))
+                .toList()));
+        return copy;
+    }
 }
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+/**
+ * Представление фильма в списках: FULL — с id всех лайкнувших пользователей, COMPACT — только likesCount.
+ */
+public enum FilmView {
+    FULL,
+    COMPACT;
+
+    public static FilmView from(String value) {
+        for (FilmView view : values()) {
+            if (view.name().equalsIgnoreCase(value)) {
+                return view;
+            }
+        }
+        throw new ValidationException("Неизвестное представление фильма: " + value);
+    }
+}
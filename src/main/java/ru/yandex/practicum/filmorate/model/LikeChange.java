@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Желаемое состояние лайка пользователя: liked = true — лайк должен быть, false — должен отсутствовать.
+ */
+public record LikeChange(long filmId, long userId, boolean liked) {
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Фильтр списка популярных фильмов: жанр, рейтинг MPA и год выхода. Поле null — фильтр по нему не задан.
+ */
+public record PopularFilter(Integer genreId, Long mpaId, Integer year) {
+    public static final PopularFilter NONE = new PopularFilter(null, null, null);
+
+    public boolean isEmpty() {
+        return genreId == null && mpaId == null && year == null;
+    }
+
+    public boolean matches(Film film) {
+        if (genreId != null && (film.getGenres() == null
+                || film.getGenres().stream().noneMatch(genre -> genreId.equals(genre.getId())))) {
+            return false;
+        }
+        if (mpaId != null && (film.getRating() == null || !mpaId.equals(film.getRating().getId()))) {
+            return false;
+        }
+        return year == null || film.getReleaseDate() != null && film.getReleaseDate().getYear() == year;
+    }
+}
@@ -30,4 +30,17 @@ public class User {
     @NotNull(message = "Дата рождения не может быть пустой", groups = ValidationGroups.OnCreate.class)
     @PastOrPresent(message = "Дата рождения не может быть в будущем", groups = {ValidationGroups.OnCreate.class, ValidationGroups.OnUpdate.class})
     private LocalDate birthday;
+
+    /**
+     * Независимая копия пользователя.
+     */
+    public User copy() {
+        User copy = new User();
+        copy.setId(id);
+        copy.setName(name);
+        copy.setEmail(email);
+        copy.setLogin(login);
+        copy.setBirthday(birthday);
+        return copy;
+    }
 }
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BrowseFilter;
+import ru.yandex.practicum.filmorate.model.BrowseResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.FacetBitmapIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Каталожный просмотр с фильтрами по жанрам, MPA и годам и счётчиками по фасетам. Фильтрация и подсчёт
+ * идут по битовым картам в памяти; индекс строится при старте и обновляется событиями {@link FilmSavedEvent}.
+ */
+@Slf4j
+@Service
+public class BrowseService {
+    private final FilmStorage filmStorage;
+
+    private final Object lock = new Object();
+    private volatile FacetBitmapIndex index = new FacetBitmapIndex();
+    // фильмы, сохранённые во время перестройки; переиндексируются в новом индексе перед подменой
+    private List<Film> pendingDuringRebuild;
+
+    public BrowseService(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (lock) {
+            if (pendingDuringRebuild != null) {
+                return;
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        long started = System.nanoTime();
+        FacetBitmapIndex rebuilt = null;
+        try {
+            Collection<Film> films = filmStorage.getAll(FilmView.COMPACT);
+            rebuilt = FacetBitmapIndex.build(films);
+            log.info("Индекс каталога построен: {} фильмов за {} мс",
+                    films.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            synchronized (lock) {
+                if (rebuilt != null) {
+                    pendingDuringRebuild.forEach(rebuilt::put);
+                    index = rebuilt;
+                }
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        synchronized (lock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event.film());
+            }
+            index.put(event.film());
+        }
+    }
+
+    public BrowseResult browse(BrowseFilter filter, long afterId, int limit, FilmView view) {
+        FacetBitmapIndex.Result result = index.browse(filter, afterId, limit);
+        // курсор берётся из индекса: фильм, удалённый из хранилища, не должен обрывать пагинацию
+        List<Long> ids = result.filmIds();
+        Long nextAfter = ids.size() < limit ? null : ids.get(ids.size() - 1);
+        return new BrowseResult(loadInOrder(ids, view), result.total(),
+                result.genreCounts(), result.mpaCounts(), nextAfter);
+    }
+
+    private List<Film> loadInOrder(List<Long> ids, FilmView view) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Film> films = filmStorage.getByIds(ids, view).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Фильм добавлен или обновлён. Публикуется после записи, синхронно в потоке записавшего.
+ */
+public record FilmSavedEvent(Film film) {
+}
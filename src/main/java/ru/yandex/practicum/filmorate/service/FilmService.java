@@ -2,15 +2,20 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,10 +26,14 @@ public class FilmService {
     private final UserStorage userStorage;
     private final GenreService genreService;
     private final MpaRatingService mpaRatingService;
+    private final LikeIngestionPipeline likeIngestionPipeline;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Film addFilm(Film film) {
         enrichFilm(film);
-        return filmStorage.addFilm(film);
+        Film saved = filmStorage.addFilm(film);
+        eventPublisher.publishEvent(new FilmSavedEvent(saved));
+        return saved;
     }
 
     public Film updateFilm(Film film) {
@@ -32,7 +41,9 @@ public class FilmService {
             throw new IllegalArgumentException("Фильм не может быть null");
         }
         enrichFilm(film);
-        return filmStorage.updateFilm(film);
+        Film saved = filmStorage.updateFilm(film);
+        eventPublisher.publishEvent(new FilmSavedEvent(saved));
+        return saved;
     }
 
     public Film getById(long id) {
@@ -40,36 +51,93 @@ public class FilmService {
                 .orElseThrow(() -> new EntityNotFoundException("Фильм", id));
     }
 
-    public Collection<Film> getAll() {
-        return filmStorage.getAll();
+    public Collection<Film> getAll(FilmView view) {
+        return filmStorage.getAll(view);
+    }
+
+    public List<Film> getPage(long afterId, int limit, FilmView view) {
+        return filmStorage.getPage(afterId, limit, view);
+    }
+
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
+        requireFilmExists(filmId);
+        return filmStorage.getLikes(filmId, afterUserId, limit);
+    }
+
+    public void exportAll(Consumer<Film> consumer) {
+        filmStorage.exportAll(consumer);
     }
 
     public void addLike(long userId, long movieId) {
-        userStorage.getById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Пользователь", userId));
+        requireUserExists(userId);
+        requireFilmExists(movieId);
 
-        filmStorage.getById(movieId)
-                .orElseThrow(() -> new EntityNotFoundException("Фильм", movieId));
+        if (likeIngestionPipeline.isEnabled()) {
+            likeIngestionPipeline.submit(new LikeChange(movieId, userId, true));
+            log.debug("Лайк пользователя id={} фильму id={} поставлен в очередь", userId, movieId);
+            return;
+        }
 
         filmStorage.addLike(movieId, userId);
+        eventPublisher.publishEvent(new LikesChangedEvent(List.of(new LikeChange(movieId, userId, true))));
 
         log.info("Пользователь id={} поставил лайк фильму id={}", userId, movieId);
     }
 
     public void removeLike(long userId, long movieId) {
-        userStorage.getById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Пользователь", userId));
+        requireUserExists(userId);
+        requireFilmExists(movieId);
 
-        filmStorage.getById(movieId)
-                .orElseThrow(() -> new EntityNotFoundException("Фильм", movieId));
+        if (likeIngestionPipeline.isEnabled()) {
+            likeIngestionPipeline.submit(new LikeChange(movieId, userId, false));
+            log.debug("Удаление лайка пользователя id={} с фильма id={} поставлено в очередь", userId, movieId);
+            return;
+        }
 
         filmStorage.removeLike(movieId, userId);
+        eventPublisher.publishEvent(new LikesChangedEvent(List.of(new LikeChange(movieId, userId, false))));
 
         log.info("Пользователь id={} удалил лайк с фильма id={}", userId, movieId);
     }
 
-    public List<Film> getPopularFilms(int count) {
-        return filmStorage.getPopularFilms(count);
+    public List<Film> getPopularFilms(int count, PopularFilter filter, FilmView view) {
+        Map<Long, Long> pendingDeltas = likeIngestionPipeline.pendingDeltas();
+        if (pendingDeltas.isEmpty()) {
+            return filmStorage.getPopularFilms(count, filter, view);
+        }
+
+        // ещё не записанные лайки могут вытеснить фильм из топа, поэтому кандидатов берём с запасом
+        long decreasing = pendingDeltas.values().stream().filter(delta -> delta < 0).count();
+        Map<Long, Film> candidates = new LinkedHashMap<>();
+        filmStorage.getPopularFilms((int) Math.min(Integer.MAX_VALUE, count + decreasing), filter, view)
+                .forEach(film -> candidates.put(film.getId(), film));
+
+        List<Long> missing = pendingDeltas.keySet().stream()
+                .filter(id -> !candidates.containsKey(id))
+                .toList();
+        filmStorage.getByIds(missing, view).stream()
+                .filter(filter::matches)
+                .forEach(film -> candidates.put(film.getId(), film));
+
+        return candidates.values().stream()
+                .map(film -> film.withLikesCount(
+                        Math.max(0, film.getLikesCount() + pendingDeltas.getOrDefault(film.getId(), 0L))))
+                .sorted(Comparator.comparingLong(Film::getLikesCount).reversed()
+                        .thenComparingLong(Film::getId))
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    private void requireUserExists(long userId) {
+        if (!userStorage.exists(userId)) {
+            throw new EntityNotFoundException("Пользователь", userId);
+        }
+    }
+
+    private void requireFilmExists(long filmId) {
+        if (!filmStorage.exists(filmId)) {
+            throw new EntityNotFoundException("Фильм", filmId);
+        }
     }
 
     private void enrichFilm(Film film) {
@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Асинхронная запись лайков: изменения копятся в ограниченной очереди, схлопываются по паре (фильм, пользователь)
+ * и пишутся в хранилище пачками раз в flush-interval-ms или по достижении batch-size.
+ * <p>
+ * Запись идемпотентна: повторный лайк и снятие несуществующего лайка в этом режиме молча ничего не меняют,
+ * а не возвращают {@link ru.yandex.practicum.filmorate.exception.LikeOperationException}, как при синхронной записи.
+ */
+@Slf4j
+@Component
+public class LikeIngestionPipeline {
+    private final FilmStorage filmStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final boolean virtualThreads;
+
+    private final Object lock = new Object();
+    private LinkedHashMap<Key, Change> pending = new LinkedHashMap<>();
+    private Map<Key, Change> inFlight = Map.of();
+    // число завершённых записей пачек: меняется, когда пары из inFlight уже записаны и убраны из очереди
+    private long completedFlushes;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    public LikeIngestionPipeline(FilmStorage filmStorage,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${filmorate.likes.async.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.async.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${filmorate.likes.async.batch-size:500}") int batchSize,
+                                 @Value("${filmorate.likes.async.flush-interval-ms:200}") long flushIntervalMs,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.filmStorage = filmStorage;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // запись пачки почти всё время ждёт базу, поэтому в режиме виртуальных потоков не держит платформенный поток
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("like-ingestion").factory()
+                : Thread.ofPlatform().name("like-ingestion").daemon().factory();
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Асинхронная запись лайков включена: очередь {}, пачка {}, интервал {} мс, виртуальные потоки: {}",
+                queueCapacity, batchSize, flushIntervalMs, virtualThreads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(LikeChange change) {
+        Key key = new Key(change.filmId(), change.userId());
+        int size;
+        while (true) {
+            long flushesBefore;
+            synchronized (lock) {
+                flushesBefore = completedFlushes;
+            }
+            // хранилище читается вне блокировки; если пара уже в очереди, базой остаётся состояние из очереди
+            boolean storedLiked = filmStorage.hasLike(change.filmId(), change.userId());
+            synchronized (lock) {
+                Change queued = pending.get(key);
+                if (queued == null && pending.size() >= queueCapacity) {
+                    throw new TooManyRequestsException("Очередь лайков переполнена, повторите запрос позже");
+                }
+                boolean before;
+                if (queued != null) {
+                    before = queued.before();
+                } else if (inFlight.containsKey(key)) {
+                    before = inFlight.get(key).liked();
+                } else if (completedFlushes != flushesBefore) {
+                    // пачка могла записать эту пару уже после чтения хранилища: прочитанное состояние устарело
+                    continue;
+                } else {
+                    before = storedLiked;
+                }
+                pending.put(key, new Change(change.liked(), before));
+                size = pending.size();
+            }
+            break;
+        }
+        if (size >= batchSize && scheduler != null && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flushSafely);
+        }
+    }
+
+    /**
+     * Ожидаемое изменение числа лайков по фильмам с учётом ещё не записанных событий.
+     * Изменение, совпадающее с состоянием пары до постановки в очередь, ничего не добавляет.
+     */
+    public Map<Long, Long> pendingDeltas() {
+        Map<Long, Long> deltas = new HashMap<>();
+        synchronized (lock) {
+            inFlight.forEach((key, change) -> deltas.merge(key.filmId(), change.delta(), Long::sum));
+            pending.forEach((key, change) -> deltas.merge(key.filmId(), change.delta(), Long::sum));
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    public int flush() {
+        List<LikeChange> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            inFlight = pending;
+            pending = new LinkedHashMap<>();
+            batch = new ArrayList<>(inFlight.size());
+            inFlight.forEach((key, change) -> batch.add(new LikeChange(key.filmId(), key.userId(), change.liked())));
+        }
+
+        int applied = 0;
+        try {
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                applied += apply(batch.subList(from, Math.min(from + batchSize, batch.size())));
+            }
+        } finally {
+            synchronized (lock) {
+                inFlight = Map.of();
+                completedFlushes++;
+            }
+        }
+        log.debug("Записано лайков: {} из {}", applied, batch.size());
+        return applied;
+    }
+
+    // в событие попадают только изменения, реально изменившие хранилище: повторные лайки рекомендациям не нужны
+    private int apply(List<LikeChange> changes) {
+        List<LikeChange> applied;
+        try {
+            applied = filmStorage.applyLikeChanges(changes);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать пачку из {} лайков, запись по одному: {}", changes.size(), e.getMessage());
+            applied = new ArrayList<>();
+            for (LikeChange change : changes) {
+                try {
+                    applied.addAll(filmStorage.applyLikeChanges(List.of(change)));
+                } catch (RuntimeException single) {
+                    log.warn("Лайк отброшен {}: {}", change, single.getMessage());
+                }
+            }
+        }
+        if (!applied.isEmpty()) {
+            eventPublisher.publishEvent(new LikesChangedEvent(List.copyOf(applied)));
+        }
+        return applied.size();
+    }
+
+    private void flushSafely() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи лайков", e);
+        }
+    }
+
+    private record Key(long filmId, long userId) {
+    }
+
+    /**
+     * Итоговое состояние пары и её состояние до постановки в очередь.
+     */
+    private record Change(boolean liked, boolean before) {
+        long delta() {
+            return liked == before ? 0 : liked ? 1 : -1;
+        }
+    }
+}
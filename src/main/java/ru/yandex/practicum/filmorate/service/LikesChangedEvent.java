@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.LikeChange;
+
+import java.util.List;
+
+/**
+ * Лайки, записанные в хранилище. Публикуется после записи, синхронно в потоке записавшего.
+ */
+public record LikesChangedEvent(List<LikeChange> changes) {
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.CoOccurrenceIndex;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Рекомендации по совместным лайкам. Индекс живёт в памяти, обновляется событиями {@link LikesChangedEvent}
+ * и периодически перестраивается целиком из хранилища.
+ * <p>
+ * Лайк задевает строки всех фильмов пользователя, поэтому события не применяются в потоке запроса:
+ * они встают в ограниченную очередь, и индекс меняет единственный поток обновления. Рекомендации
+ * отстают от лайков на время очереди. При переполнении изменения отбрасываются — их догонит перестройка.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final int neighbors;
+
+    private final BlockingQueue<Runnable> updates;
+    private final Thread updater;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final LongAdder dropped = new LongAdder();
+    private volatile CoOccurrenceIndex index;
+    // изменения, пришедшие во время перестройки; применяются к новому индексу перед подменой.
+    // Как и сам индекс, меняется только в потоке обновления
+    private List<LikeChange> pendingDuringRebuild;
+
+    public RecommendationService(FilmStorage filmStorage,
+                                 UserStorage userStorage,
+                                 @Value("${filmorate.recommendations.neighbors:50}") int neighbors,
+                                 @Value("${filmorate.recommendations.queue-capacity:100000}") int queueCapacity) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.neighbors = neighbors;
+        this.index = new CoOccurrenceIndex(neighbors);
+        this.updates = new LinkedBlockingQueue<>(queueCapacity);
+        this.updater = new Thread(this::runUpdates, "recommendation-updater");
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${filmorate.recommendations.rebuild-interval:PT1H}",
+            fixedDelayString = "${filmorate.recommendations.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // запись начинается в очереди: всё, что встало раньше, уже в хранилище и попадёт в выборку
+            runOnUpdater(() -> pendingDuringRebuild = new ArrayList<>());
+            long started = System.nanoTime();
+            CoOccurrenceIndex rebuilt = null;
+            try {
+                Map<Long, SortedLongSet> likes = filmStorage.getLikedFilmsByUser();
+                rebuilt = CoOccurrenceIndex.build(likes, neighbors);
+                log.info("Индекс рекомендаций построен: {} пользователей с лайками за {} мс",
+                        likes.size(), (System.nanoTime() - started) / 1_000_000);
+            } finally {
+                CoOccurrenceIndex built = rebuilt;
+                runOnUpdater(() -> {
+                    if (built != null) {
+                        // применение идемпотентно, поэтому изменения, уже попавшие в выборку, не задвоятся
+                        for (LikeChange change : pendingDuringRebuild) {
+                            built.apply(change.userId(), change.filmId(), change.liked());
+                        }
+                        index = built;
+                    }
+                    pendingDuringRebuild = null;
+                });
+            }
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                log.warn("Очередь обновления рекомендаций переполнялась, до перестройки отброшено событий: {}", lost);
+            }
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @EventListener
+    public void onLikesChanged(LikesChangedEvent event) {
+        if (!updates.offer(() -> apply(event.changes()))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Ждёт, пока применятся события, вставшие в очередь до вызова.
+     */
+    void awaitUpdates() {
+        runOnUpdater(() -> { });
+    }
+
+    @PreDestroy
+    public void stop() {
+        updater.interrupt();
+    }
+
+    private void apply(List<LikeChange> changes) {
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.addAll(changes);
+        }
+        for (LikeChange change : changes) {
+            index.apply(change.userId(), change.filmId(), change.liked());
+        }
+    }
+
+    private void runUpdates() {
+        try {
+            while (true) {
+                Runnable update = updates.take();
+                try {
+                    update.run();
+                } catch (RuntimeException e) {
+                    log.error("Ошибка обновления индекса рекомендаций", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // задачи перестройки не отбрасываются: при полной очереди ждут места
+    private void runOnUpdater(Runnable task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            updates.put(() -> {
+                try {
+                    task.run();
+                    done.complete(null);
+                } catch (RuntimeException e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание потока обновления рекомендаций", e);
+        }
+        done.join();
+    }
+
+    public List<Film> getSimilarFilms(long filmId, int count, FilmView view) {
+        if (!filmStorage.exists(filmId)) {
+            throw new EntityNotFoundException("Фильм", filmId);
+        }
+        return loadInOrder(index.similar(filmId, count), view);
+    }
+
+    public List<Film> getRecommendations(long userId, int count, FilmView view) {
+        if (!userStorage.exists(userId)) {
+            throw new EntityNotFoundException("Пользователь", userId);
+        }
+        return loadInOrder(index.recommend(userId, count), view);
+    }
+
+    private List<Film> loadInOrder(List<Long> ids, FilmView view) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Film> films = filmStorage.getByIds(ids, view).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
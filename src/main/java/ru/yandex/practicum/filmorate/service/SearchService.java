@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск фильмов. Индекс живёт в памяти, строится при старте и обновляется
+ * событиями {@link FilmSavedEvent}.
+ * <p>
+ * Индекс ранжирует только по тексту. Лайки подмешиваются при выдаче: из индекса берётся
+ * {@value #CANDIDATE_FACTOR}× кандидатов, и их оценка BM25 умножается на 1 + likes-weight × ln(1 + лайки).
+ */
+@Slf4j
+@Service
+public class SearchService {
+    static final int CANDIDATE_FACTOR = 3;
+
+    private final FilmStorage filmStorage;
+    private final double likesWeight;
+
+    private final Object lock = new Object();
+    private volatile FilmSearchIndex index = new FilmSearchIndex();
+    // фильмы, сохранённые во время перестройки; переиндексируются в новом индексе перед подменой
+    private List<Film> pendingDuringRebuild;
+
+    public SearchService(FilmStorage filmStorage,
+                         @Value("${filmorate.search.likes-weight:0.2}") double likesWeight) {
+        this.filmStorage = filmStorage;
+        this.likesWeight = likesWeight;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (lock) {
+            if (pendingDuringRebuild != null) {
+                return;
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        long started = System.nanoTime();
+        FilmSearchIndex rebuilt = null;
+        try {
+            Collection<Film> films = filmStorage.getAll(FilmView.COMPACT);
+            rebuilt = FilmSearchIndex.build(films);
+            log.info("Поисковый индекс построен: {} фильмов за {} мс",
+                    films.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            synchronized (lock) {
+                if (rebuilt != null) {
+                    pendingDuringRebuild.forEach(rebuilt::put);
+                    index = rebuilt;
+                }
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        synchronized (lock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event.film());
+            }
+            index.put(event.film());
+        }
+    }
+
+    public List<Film> search(String query, int limit, FilmView view) {
+        int candidates = (int) Math.min(Integer.MAX_VALUE, (long) limit * CANDIDATE_FACTOR);
+        List<FilmSearchIndex.Match> matches = index.search(query, candidates);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Film> films = filmStorage.getByIds(
+                        matches.stream().map(FilmSearchIndex.Match::filmId).toList(), view).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+
+        return matches.stream()
+                .filter(match -> films.containsKey(match.filmId()))
+                .map(match -> new Scored(films.get(match.filmId()),
+                        match.score() * (1 + likesWeight * Math.log1p(films.get(match.filmId()).getLikesCount()))))
+                .sorted(Comparator.comparingDouble(Scored::score).reversed()
+                        .thenComparing(scored -> scored.film().getId()))
+                .limit(limit)
+                .map(Scored::film)
+                .toList();
+    }
+
+    private record Scored(Film film, double score) {
+    }
+}
@@ -36,11 +36,15 @@ public class UserService {
         return userStorage.getAll();
     }
 
+    public List<User> getPage(long afterId, int limit) {
+        return userStorage.getPage(afterId, limit);
+    }
+
     public void addFriend(long userId, long friendId) {
         FriendValidator.validateAddFriend(userId, friendId);
 
-        getById(userId);
-        getById(friendId);
+        requireUserExists(userId);
+        requireUserExists(friendId);
 
         friendshipStorage.addFriend(userId, friendId);
 
@@ -48,8 +52,8 @@ public class UserService {
     }
 
     public void removeFriend(long userId, long friendId) {
-        getById(userId);
-        getById(friendId);
+        requireUserExists(userId);
+        requireUserExists(friendId);
 
         friendshipStorage.removeFriend(userId, friendId);
 
@@ -57,14 +61,25 @@ public class UserService {
     }
 
     public Collection<User> getFriends(long userId) {
-        getById(userId);
+        requireUserExists(userId);
         return friendshipStorage.getFriends(userId);
     }
 
     public List<User> getCommonFriends(long userId, long friendId) {
-        getById(userId);
-        getById(friendId);
+        requireUserExists(userId);
+        requireUserExists(friendId);
 
         return friendshipStorage.getCommonFriends(userId, friendId).stream().toList();
     }
+
+    public List<User> getFriendSuggestions(long userId, int limit) {
+        requireUserExists(userId);
+        return friendshipStorage.getFriendSuggestions(userId, limit);
+    }
+
+    private void requireUserExists(long userId) {
+        if (!userStorage.exists(userId)) {
+            throw new EntityNotFoundException("Пользователь", userId);
+        }
+    }
 }
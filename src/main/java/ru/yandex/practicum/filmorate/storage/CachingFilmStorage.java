@@ -0,0 +1,240 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Кэш собранных фильмов для getById поверх основного хранилища: ограничение по числу записей и TTL.
+ * Записи сбрасываются при изменении фильма или его лайков.
+ * <p>
+ * Блокировок нет: записи лежат в ConcurrentHashMap, вытеснение — «часы» (CLOCK) по очереди вставки,
+ * запись, к которой обращались после прошлого прохода, получает второй шанс. На время загрузки
+ * в карту кладётся метка; сброс удаляет её, и загруженная версия тогда не кэшируется.
+ * Так изменение одного фильма не мешает кэшировать остальные. Наружу отдаются копии.
+ */
+@Slf4j
+@Primary
+@Component
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final ConcurrentMap<Long, Entry> cache = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    // в очереди остаются и уже сброшенные записи, поэтому её длину ограничиваем отдельно
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingFilmStorage(@Qualifier("filmDbStorage") FilmStorage delegate,
+                              @Value("${filmorate.cache.films.max-entries:10000}") int maxEntries,
+                              @Value("${filmorate.cache.films.ttl:PT5M}") Duration ttl) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Optional<Film> getById(Long id) {
+        if (maxEntries <= 0) {
+            return delegate.getById(id);
+        }
+
+        long now = System.nanoTime();
+        Entry entry = cache.get(id);
+        if (entry != null && !entry.isLoading()) {
+            if (entry.expiresAt - now > 0) {
+                entry.referenced = true;
+                hits.increment();
+                return Optional.of(entry.film.copy());
+            }
+            if (cache.remove(id, entry)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Entry marker = new Entry(id, null, 0);
+        boolean owner = cache.putIfAbsent(id, marker) == null;
+        Optional<Film> film = Optional.empty();
+        try {
+            film = delegate.getById(id);
+        } finally {
+            if (owner) {
+                // метки уже нет — за время загрузки фильм сбросили, такую версию не кэшируем
+                Optional<Entry> loaded = film.map(value -> new Entry(id, value.copy(), now + ttlNanos));
+                if (loaded.isPresent() && cache.replace(id, marker, loaded.get())) {
+                    enqueue(loaded.get());
+                } else {
+                    cache.remove(id, marker);
+                }
+            }
+        }
+        return film;
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        Entry entry = cache.get(id);
+        if (entry != null && !entry.isLoading()) {
+            return true;
+        }
+        return delegate.exists(id);
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        return delegate.addFilm(film);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        try {
+            return delegate.updateFilm(film);
+        } finally {
+            invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        try {
+            delegate.addLike(filmId, userId);
+        } finally {
+            invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        try {
+            delegate.removeLike(filmId, userId);
+        } finally {
+            invalidate(filmId);
+        }
+    }
+
+    @Override
+    public List<LikeChange> applyLikeChanges(Collection<LikeChange> changes) {
+        try {
+            return delegate.applyLikeChanges(changes);
+        } finally {
+            changes.forEach(change -> invalidate(change.filmId()));
+        }
+    }
+
+    @Override
+    public List<Film> getByIds(Collection<Long> ids, FilmView view) {
+        return delegate.getByIds(ids, view);
+    }
+
+    @Override
+    public Collection<Film> getAll(FilmView view) {
+        return delegate.getAll(view);
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit, FilmView view) {
+        return delegate.getPage(afterId, limit, view);
+    }
+
+    @Override
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
+        return delegate.getLikes(filmId, afterUserId, limit);
+    }
+
+    @Override
+    public void exportAll(Consumer<Film> consumer) {
+        delegate.exportAll(consumer);
+    }
+
+    @Override
+    public Map<Long, SortedLongSet> getLikedFilmsByUser() {
+        return delegate.getLikedFilmsByUser();
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, PopularFilter filter, FilmView view) {
+        return delegate.getPopularFilms(count, filter, view);
+    }
+
+    public void invalidate(long filmId) {
+        cache.remove(filmId);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+        log.debug("Кэш фильмов очищен");
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(),
+                (int) cache.values().stream().filter(entry -> !entry.isLoading()).count());
+    }
+
+    private void enqueue(Entry entry) {
+        clock.add(entry);
+        queued.incrementAndGet();
+        while (cache.size() > maxEntries || queued.get() > 2 * maxEntries) {
+            Entry candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (cache.get(candidate.filmId) != candidate) {
+                continue;
+            }
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                clock.add(candidate);
+                queued.incrementAndGet();
+            } else if (cache.remove(candidate.filmId, candidate)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    // сравнивается по ссылке: метка загрузки должна совпадать только сама с собой
+    private static final class Entry {
+        private final long filmId;
+        private final Film film;
+        private final long expiresAt;
+        private volatile boolean referenced;
+
+        private Entry(long filmId, Film film, long expiresAt) {
+            this.filmId = filmId;
+            this.film = film;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isLoading() {
+            return film == null;
+        }
+    }
+}
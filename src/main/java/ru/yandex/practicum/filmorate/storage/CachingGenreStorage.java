@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.GenreDbStorage;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.index.IdDictionary;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+public class CachingGenreStorage implements GenreStorage {
+    private final GenreDbStorage genreDbStorage;
+    private volatile IdDictionary<Genre> genres;
+
+    @PostConstruct
+    public void load() {
+        genres = fetch();
+        log.info("Справочник жанров загружен: {} записей", genres.values().size());
+    }
+
+    /**
+     * Перечитывает справочник по расписанию; до окончания загрузки запросы обслуживает прежняя версия.
+     */
+    @Scheduled(initialDelayString = "${filmorate.dictionaries.refresh-interval:PT10M}",
+            fixedDelayString = "${filmorate.dictionaries.refresh-interval:PT10M}")
+    public void invalidate() {
+        genres = fetch();
+        log.debug("Справочник жанров обновлён: {} записей", genres.values().size());
+    }
+
+    @Override
+    public Collection<Genre> getAll() {
+        return genres.values();
+    }
+
+    @Override
+    public Optional<Genre> getById(Integer id) {
+        return id != null ? genres.get(id) : Optional.empty();
+    }
+
+    private IdDictionary<Genre> fetch() {
+        return new IdDictionary<>(genreDbStorage.getAll(), Genre::getId);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.index.IdDictionary;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+public class CachingMpaRatingStorage implements MpaRatingStorage {
+    private final MpaRatingDbStorage mpaRatingDbStorage;
+    private volatile IdDictionary<MpaRating> ratings;
+
+    @PostConstruct
+    public void load() {
+        ratings = fetch();
+        log.info("Справочник MPA загружен: {} записей", ratings.values().size());
+    }
+
+    /**
+     * Перечитывает справочник по расписанию; до окончания загрузки запросы обслуживает прежняя версия.
+     */
+    @Scheduled(initialDelayString = "${filmorate.dictionaries.refresh-interval:PT10M}",
+            fixedDelayString = "${filmorate.dictionaries.refresh-interval:PT10M}")
+    public void invalidate() {
+        ratings = fetch();
+        log.debug("Справочник MPA обновлён: {} записей", ratings.values().size());
+    }
+
+    @Override
+    public Collection<MpaRating> getAll() {
+        return ratings.values();
+    }
+
+    @Override
+    public Optional<MpaRating> getById(Long id) {
+        return id != null ? ratings.get(id) : Optional.empty();
+    }
+
+    private IdDictionary<MpaRating> fetch() {
+        return new IdDictionary<>(mpaRatingDbStorage.getAll(), rating -> Math.toIntExact(rating.getId()));
+    }
+}
@@ -1,10 +1,16 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film addFilm(Film film);
@@ -13,11 +19,49 @@ public interface FilmStorage {
 
     Optional<Film> getById(Long id);
 
-    Collection<Film> getAll();
+    boolean exists(Long id);
+
+    List<Film> getByIds(Collection<Long> ids, FilmView view);
+
+    default Collection<Film> getAll() {
+        return getAll(FilmView.FULL);
+    }
+
+    Collection<Film> getAll(FilmView view);
+
+    List<Film> getPage(long afterId, int limit, FilmView view);
+
+    List<Long> getLikes(long filmId, long afterUserId, int limit);
+
+    default boolean hasLike(long filmId, long userId) {
+        return getLikes(filmId, userId - 1, 1).contains(userId);
+    }
+
+    void exportAll(Consumer<Film> consumer);
+
+    /**
+     * Лайкнутые фильмы каждого пользователя, у которого есть хотя бы один лайк.
+     */
+    Map<Long, SortedLongSet> getLikedFilmsByUser();
 
     void addLike(Long filmId, Long userId);
 
     void removeLike(Long filmId, Long userId);
 
-    List<Film> getPopularFilms(int count);
+    /**
+     * Применяет пачку изменений лайков идемпотентно.
+     *
+     * @return изменения, реально изменившие состояние
+     */
+    List<LikeChange> applyLikeChanges(Collection<LikeChange> changes);
+
+    default List<Film> getPopularFilms(int count) {
+        return getPopularFilms(count, FilmView.FULL);
+    }
+
+    default List<Film> getPopularFilms(int count, FilmView view) {
+        return getPopularFilms(count, PopularFilter.NONE, view);
+    }
+
+    List<Film> getPopularFilms(int count, PopularFilter filter, FilmView view);
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface FriendshipStorage {
 
@@ -13,4 +14,9 @@ public interface FriendshipStorage {
     Collection<User> getFriends(long userId);
 
     Collection<User> getCommonFriends(long userId, long friendId);
+
+    /**
+     * Друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей, затем по id.
+     */
+    List<User> getFriendSuggestions(long userId, int limit);
 }
@@ -5,69 +5,171 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.LikeOperationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.storage.index.FacetedPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FacetedPopularityIndex.Facets;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти.
+ * Чтение идёт без блокировок, изменения одного фильма сериализуются на его полосе блокировок,
+ * поэтому набор лайков и индекс популярности всегда меняются согласованно.
+ * Сохранённые фильмы не изменяются: обновление кладёт в карту новый экземпляр.
+ * Лайки хранятся только в {@link LikeIndex}; наружу уходят копии фильмов
+ * со снимком лайков и likesCount по этому снимку.
+ */
 @Slf4j
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private long nextId = 1;
-    private final Map<Long, Film> films = new HashMap<>();
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    // Отсортированная карта: страницы и выгрузка идут по возрастанию id без пересортировки
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final FacetedPopularityIndex popularityIndex = new FacetedPopularityIndex();
+    private final LikeIndex likeIndex = new LikeIndex();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public InMemoryFilmStorage() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
 
     @Override
     public Film addFilm(Film film) {
-        film.setId(getNextId());
-        films.put(film.getId(), film);
-        log.info("Фильм успешно добавлен: {}", film);
-        return film;
+        long id = nextId.getAndIncrement();
+        SortedLongSet likes = film.getLikes() != null ? SortedLongSet.copyOf(film.getLikes()) : SortedLongSet.EMPTY;
+        film.setId(id);
+        Film stored = film.copy();
+        stored.setLikes(null);
+        synchronized (lockFor(id)) {
+            likeIndex.put(id, likes);
+            films.put(id, stored);
+            popularityIndex.setFacets(id, Facets.of(stored));
+            popularityIndex.put(id, likes.size());
+        }
+        Film added = full(stored);
+        log.info("Фильм успешно добавлен: {}", added);
+        return added;
     }
 
     @Override
     public Film updateFilm(Film updatedFilm) {
-        if (!films.containsKey(updatedFilm.getId())) {
-            log.warn("Ошибка обновления: фильм с id={} не найден", updatedFilm.getId());
-            throw new EntityNotFoundException("Фильм", updatedFilm.getId());
+        Long id = updatedFilm.getId();
+        Film newFilm;
+        synchronized (lockFor(id)) {
+            Film oldFilm = films.get(id);
+            if (oldFilm == null) {
+                log.warn("Ошибка обновления: фильм с id={} не найден", id);
+                throw new EntityNotFoundException("Фильм", id);
+            }
+
+            newFilm = oldFilm.copy();
+            if (updatedFilm.getName() != null) {
+                newFilm.setName(updatedFilm.getName());
+            }
+            if (updatedFilm.getDescription() != null) {
+                newFilm.setDescription(updatedFilm.getDescription());
+            }
+            if (updatedFilm.getReleaseDate() != null) {
+                newFilm.setReleaseDate(updatedFilm.getReleaseDate());
+            }
+            if (updatedFilm.getDuration() != null) {
+                newFilm.setDuration(updatedFilm.getDuration());
+            }
+            // жанры, как и в БД, заменяются целиком; копия — чтобы не разделять их с вызывающим
+            Film changes = updatedFilm.copy();
+            if (changes.getGenres() != null) {
+                newFilm.setGenres(changes.getGenres());
+            }
+            if (changes.getRating() != null) {
+                newFilm.setRating(changes.getRating());
+            }
+            films.put(id, newFilm);
+            popularityIndex.setFacets(id, Facets.of(newFilm));
         }
 
-        Film oldFilm = films.get(updatedFilm.getId());
+        // запрос может быть частичным, поэтому возвращается сохранённая версия
+        Film updated = full(newFilm);
+        log.info("Фильм успешно обновлён: {}", updated);
+        return updated;
+    }
 
-        if (updatedFilm.getName() != null) {
-            oldFilm.setName(updatedFilm.getName());
-        }
-        if (updatedFilm.getDescription() != null) {
-            oldFilm.setDescription(updatedFilm.getDescription());
-        }
-        if (updatedFilm.getReleaseDate() != null) {
-            oldFilm.setReleaseDate(updatedFilm.getReleaseDate());
-        }
-        if (updatedFilm.getDuration() != null) {
-            oldFilm.setDuration(updatedFilm.getDuration());
-        }
+    @Override
+    public Optional<Film> getById(Long id) {
+        return Optional.ofNullable(films.get(id)).map(this::full);
+    }
 
-        log.info("Фильм успешно обновлён: {}", updatedFilm);
-        return updatedFilm;
+    @Override
+    public boolean exists(Long id) {
+        return films.containsKey(id);
     }
 
     @Override
-    public Optional<Film> getById(Long id) {
-        return Optional.ofNullable(films.get(id));
+    public List<Film> getByIds(Collection<Long> ids, FilmView view) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(film -> copy(film, view))
+                .collect(Collectors.toList());
     }
 
     @Override
-    public Collection<Film> getAll() {
-        return films.values();
+    public Collection<Film> getAll(FilmView view) {
+        return films.values().stream()
+                .map(film -> copy(film, view))
+                .collect(Collectors.toList());
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        Film film = films.get(filmId);
-        if (film == null) {
-            throw new EntityNotFoundException("Фильм", filmId);
-        }
+    public List<Film> getPage(long afterId, int limit, FilmView view) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(film -> copy(film, view))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
+        return likeIndex.after(filmId, afterUserId, limit);
+    }
 
-        if (!film.getLikes().add(userId)) {
-            throw new LikeOperationException("Пользователь уже ставил лайк этому фильму.");
+    @Override
+    public void exportAll(Consumer<Film> consumer) {
+        films.values().forEach(film -> consumer.accept(full(film)));
+    }
+
+    @Override
+    public Map<Long, SortedLongSet> getLikedFilmsByUser() {
+        Map<Long, SortedLongSet.Builder> builders = new HashMap<>();
+        likeIndex.forEach((filmId, users) -> users.stream()
+                .forEach(userId -> builders.computeIfAbsent(userId, id -> SortedLongSet.builder()).add(filmId)));
+        Map<Long, SortedLongSet> result = new HashMap<>(builders.size() * 2);
+        builders.forEach((userId, builder) -> result.put(userId, builder.build()));
+        return result;
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        synchronized (lockFor(filmId)) {
+            if (!films.containsKey(filmId)) {
+                throw new EntityNotFoundException("Фильм", filmId);
+            }
+            if (!likeIndex.add(filmId, userId)) {
+                throw new LikeOperationException("Пользователь уже ставил лайк этому фильму.");
+            }
+            syncPopularity(filmId);
         }
 
         log.info("Добавлен лайк: пользователь {} → фильм {}", userId, filmId);
@@ -75,29 +177,72 @@ public class InMemoryFilmStorage implements FilmStorage {
 
     @Override
     public void removeLike(Long filmId, Long userId) {
-        Film film = films.get(filmId);
-        if (film == null) {
-            throw new EntityNotFoundException("Фильм", filmId);
-        }
-
-        if (!film.getLikes().remove(userId)) {
-            throw new LikeOperationException("Пользователь не добавлял лайк к данному фильму");
+        synchronized (lockFor(filmId)) {
+            if (!films.containsKey(filmId)) {
+                throw new EntityNotFoundException("Фильм", filmId);
+            }
+            if (!likeIndex.remove(filmId, userId)) {
+                throw new LikeOperationException("Пользователь не добавлял лайк к данному фильму");
+            }
+            syncPopularity(filmId);
         }
 
         log.info("Удалён лайк: пользователь {} → фильм {}", userId, filmId);
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
-        return films.values().stream()
-                .sorted(Comparator
-                        .comparingInt((Film f) -> f.getLikes().size()).reversed()
-                        .thenComparingLong(Film::getId))
-                .limit(Math.max(0, count))
+    public List<LikeChange> applyLikeChanges(Collection<LikeChange> changes) {
+        List<LikeChange> applied = new ArrayList<>();
+        for (LikeChange change : changes) {
+            synchronized (lockFor(change.filmId())) {
+                if (!films.containsKey(change.filmId())) {
+                    continue;
+                }
+                boolean changed = change.liked()
+                        ? likeIndex.add(change.filmId(), change.userId())
+                        : likeIndex.remove(change.filmId(), change.userId());
+                if (changed) {
+                    syncPopularity(change.filmId());
+                    applied.add(change);
+                }
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, PopularFilter filter, FilmView view) {
+        return popularityIndex.top(count, filter).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(film -> copy(film, view))
                 .collect(Collectors.toList());
     }
 
-    private Long getNextId() {
-        return nextId++;
+    // Вызывается под блокировкой фильма
+    private void syncPopularity(long filmId) {
+        popularityIndex.put(filmId, likeIndex.count(filmId));
+    }
+
+    private Object lockFor(long filmId) {
+        return locks[(int) ((filmId ^ (filmId >>> 32)) & (LOCK_STRIPES - 1))];
+    }
+
+    private Film full(Film film) {
+        return copy(film, FilmView.FULL);
+    }
+
+    // в полном представлении likes и likesCount берутся из одного снимка индекса лайков
+    private Film copy(Film film, FilmView view) {
+        Film copy = film.copy();
+        if (view == FilmView.COMPACT) {
+            copy.setLikes(null);
+            copy.setLikesCount(likeIndex.count(film.getId()));
+        } else {
+            SortedLongSet likes = likeIndex.get(film.getId());
+            copy.setLikes(likes.asSet());
+            copy.setLikesCount(likes.size());
+        }
+        return copy;
     }
 }
@@ -2,70 +2,183 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DuplicateEntityException;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище пользователей в памяти.
+ * Уникальные индексы по email и логину повторяют ограничения UNIQUE из schema.sql:
+ * значение сначала занимается через putIfAbsent и лишь потом освобождается старое, поэтому дубль отклоняется за O(1).
+ * Хранимые пользователи не меняются на месте: обновление кладёт новую копию, наружу отдаются копии.
+ */
 @Slf4j
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private long nextId = 1;
-    private final Map<Long, User> users = new HashMap<>();
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByLogin = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public InMemoryUserStorage() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
 
     @Override
-    public User addUser(User user) {
+    public User addUser(User newUser) {
+        User user = newUser.copy();
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
             log.info("Имя отсутствует, использован логин как имя: {}", user.getLogin());
         }
 
-        user.setId(getNextId());
-        users.put(user.getId(), user);
+        long id = nextId.getAndIncrement();
+        claim(idsByEmail, user.getEmail(), id, "email");
+        try {
+            claim(idsByLogin, user.getLogin(), id, "логином");
+        } catch (DuplicateEntityException e) {
+            release(idsByEmail, user.getEmail(), id);
+            throw e;
+        }
+
+        user.setId(id);
+        users.put(id, user);
         log.info("Пользователь успешно добавлен: {}", user);
-        return user;
+        return user.copy();
     }
 
     @Override
     public User updateUser(User updatedUser) {
-        if (updatedUser.getId() == null || !users.containsKey(updatedUser.getId())) {
-            log.warn("Ошибка обновления: пользователь с id={} не найден", updatedUser.getId());
-            throw new EntityNotFoundException("Пользователь", updatedUser.getId());
+        Long id = updatedUser.getId();
+        if (id == null) {
+            log.warn("Ошибка обновления: пользователь с id={} не найден", id);
+            throw new EntityNotFoundException("Пользователь", id);
         }
 
-        User oldUser = users.get(updatedUser.getId());
+        User newUser;
+        synchronized (lockFor(id)) {
+            User oldUser = users.get(id);
+            if (oldUser == null) {
+                log.warn("Ошибка обновления: пользователь с id={} не найден", id);
+                throw new EntityNotFoundException("Пользователь", id);
+            }
 
-        if (updatedUser.getName() != null) {
-            oldUser.setName(updatedUser.getName().isBlank() ? updatedUser.getLogin() : updatedUser.getName());
-        }
-        if (updatedUser.getEmail() != null) {
-            oldUser.setEmail(updatedUser.getEmail());
-        }
-        if (updatedUser.getLogin() != null) {
-            oldUser.setLogin(updatedUser.getLogin());
-        }
-        if (updatedUser.getBirthday() != null) {
-            oldUser.setBirthday(updatedUser.getBirthday());
-        }
+            String oldEmail = oldUser.getEmail();
+            String oldLogin = oldUser.getLogin();
+            String newEmail = updatedUser.getEmail() != null ? updatedUser.getEmail() : oldEmail;
+            String newLogin = updatedUser.getLogin() != null ? updatedUser.getLogin() : oldLogin;
+
+            claim(idsByEmail, newEmail, id, "email");
+            try {
+                claim(idsByLogin, newLogin, id, "логином");
+            } catch (DuplicateEntityException e) {
+                if (!Objects.equals(newEmail, oldEmail)) {
+                    release(idsByEmail, newEmail, id);
+                }
+                throw e;
+            }
+            if (!Objects.equals(newEmail, oldEmail)) {
+                release(idsByEmail, oldEmail, id);
+            }
+            if (!Objects.equals(newLogin, oldLogin)) {
+                release(idsByLogin, oldLogin, id);
+            }
+
+            newUser = oldUser.copy();
+            if (updatedUser.getName() != null) {
+                newUser.setName(updatedUser.getName().isBlank() ? newLogin : updatedUser.getName());
+            }
+            newUser.setEmail(newEmail);
+            newUser.setLogin(newLogin);
+            if (updatedUser.getBirthday() != null) {
+                newUser.setBirthday(updatedUser.getBirthday());
+            }
+            users.put(id, newUser);
 
-        log.info("Пользователь успешно обновлён: {}", oldUser);
-        return updatedUser;
+            log.info("Пользователь успешно обновлён: {}", newUser);
+        }
+        // запрос может быть частичным, поэтому возвращается сохранённая версия
+        return newUser.copy();
     }
 
     @Override
     public Optional<User> getById(Long id) {
-        return Optional.ofNullable(users.get(id));
+        return Optional.ofNullable(users.get(id)).map(User::copy);
+    }
+
+    @Override
+    public List<User> getByIds(Collection<Long> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(User::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(idsByEmail.get(email)).map(users::get).map(User::copy);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return Optional.ofNullable(idsByLogin.get(login)).map(users::get).map(User::copy);
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return users.containsKey(id);
     }
 
     @Override
     public Collection<User> getAll() {
-        return users.values();
+        return users.values().stream()
+                .map(User::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(User::copy)
+                .collect(Collectors.toList());
+    }
+
+    private void claim(Map<String, Long> index, String value, long id, String field) {
+        if (value == null) {
+            return;
+        }
+        Long owner = index.putIfAbsent(value, id);
+        if (owner != null && owner != id) {
+            log.warn("Значение {} уже занято пользователем с id={}", value, owner);
+            throw new DuplicateEntityException("Пользователь с таким " + field + " уже существует: " + value);
+        }
+    }
+
+    private void release(Map<String, Long> index, String value, long id) {
+        if (value != null) {
+            index.remove(value, id);
+        }
     }
 
-    private Long getNextId() {
-        return nextId++;
+    private Object lockFor(long userId) {
+        return locks[(int) ((userId ^ (userId >>> 32)) & (LOCK_STRIPES - 1))];
     }
 }
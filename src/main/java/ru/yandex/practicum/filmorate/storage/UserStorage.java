@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserStorage {
@@ -12,5 +13,15 @@ public interface UserStorage {
 
     Optional<User> getById(Long id);
 
+    List<User> getByIds(Collection<Long> ids);
+
+    Optional<User> findByEmail(String email);
+
+    Optional<User> findByLogin(String login);
+
+    boolean exists(Long id);
+
     Collection<User> getAll();
+
+    List<User> getPage(long afterId, int limit);
 }
@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Матрица совместных лайков «фильм × фильм» для рекомендаций «кто лайкнул это, лайкнул и …».
+ * Строка фильма — разреженная карта: с какими фильмами и сколько раз его лайкали одни и те же пользователи.
+ * Похожесть фильмов — косинусная: совместные лайки / sqrt(лайки первого × лайки второго).
+ * <p>
+ * Для каждого фильма лениво вычисляются и кэшируются N ближайших соседей. Лайк меняет строки
+ * фильма и всех фильмов, лайкнутых тем же пользователем, и сбрасывает их кэш. Изменение числа лайков
+ * задевает похожесть и в остальных строках; эти строки догоняются при полной перестройке.
+ */
+public class CoOccurrenceIndex {
+    private final int neighbors;
+    private final Map<Long, SortedLongSet> filmsByUser;
+    private final Map<Long, LongIntHashMap> rows;
+    private final LongIntHashMap likeCounts;
+    private final Map<Long, Neighbors> neighborsCache = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoOccurrenceIndex(int neighbors) {
+        this(neighbors, new ConcurrentHashMap<>(), new HashMap<>(), new LongIntHashMap());
+    }
+
+    private CoOccurrenceIndex(int neighbors, Map<Long, SortedLongSet> filmsByUser,
+                              Map<Long, LongIntHashMap> rows, LongIntHashMap likeCounts) {
+        if (neighbors <= 0) {
+            throw new IllegalArgumentException("Число соседей должно быть положительным: " + neighbors);
+        }
+        this.neighbors = neighbors;
+        this.filmsByUser = filmsByUser;
+        this.rows = rows;
+        this.likeCounts = likeCounts;
+    }
+
+    /**
+     * Полная сборка по лайкам пользователей. Строки фильмов независимы, поэтому считаются
+     * параллельно в общем пуле fork-join, каждая задача пишет только свою строку.
+     */
+    public static CoOccurrenceIndex build(Map<Long, SortedLongSet> filmsByUser, int neighbors) {
+        Map<Long, SortedLongSet.Builder> usersByFilm = new HashMap<>();
+        filmsByUser.forEach((userId, films) -> films.stream()
+                .forEach(filmId -> usersByFilm.computeIfAbsent(filmId, id -> SortedLongSet.builder()).add(userId)));
+
+        LongIntHashMap likeCounts = new LongIntHashMap(usersByFilm.size());
+        Map<Long, SortedLongSet> likedBy = new HashMap<>(usersByFilm.size() * 2);
+        usersByFilm.forEach((filmId, users) -> {
+            SortedLongSet set = users.build();
+            likedBy.put(filmId, set);
+            likeCounts.add(filmId, set.size());
+        });
+
+        Map<Long, LongIntHashMap> rows = new ConcurrentHashMap<>(likedBy.size() * 2);
+        likedBy.entrySet().parallelStream().forEach(entry -> {
+            long filmId = entry.getKey();
+            LongIntHashMap row = new LongIntHashMap();
+            entry.getValue().stream().forEach(userId -> filmsByUser.get(userId).stream()
+                    .filter(other -> other != filmId)
+                    .forEach(other -> row.add(other, 1)));
+            rows.put(filmId, row);
+        });
+
+        CoOccurrenceIndex index = new CoOccurrenceIndex(neighbors, new ConcurrentHashMap<>(filmsByUser),
+                new HashMap<>(rows), likeCounts);
+        likedBy.keySet().parallelStream().forEach(index::neighbors);
+        return index;
+    }
+
+    /**
+     * Применяет изменение лайка. Повторное применение того же состояния ничего не меняет.
+     *
+     * @return true, если состояние изменилось
+     */
+    public boolean apply(long userId, long filmId, boolean liked) {
+        lock.writeLock().lock();
+        try {
+            SortedLongSet films = filmsByUser.getOrDefault(userId, SortedLongSet.EMPTY);
+            if (films.contains(filmId) == liked) {
+                return false;
+            }
+            int delta = liked ? 1 : -1;
+            LongIntHashMap row = rows.computeIfAbsent(filmId, id -> new LongIntHashMap());
+            films.stream()
+                    .filter(other -> other != filmId)
+                    .forEach(other -> {
+                        row.add(other, delta);
+                        rows.computeIfAbsent(other, id -> new LongIntHashMap()).add(filmId, delta);
+                        neighborsCache.remove(other);
+                    });
+            if (row.size() == 0) {
+                rows.remove(filmId);
+            }
+            likeCounts.add(filmId, delta);
+            neighborsCache.remove(filmId);
+
+            SortedLongSet updated = liked ? films.with(filmId) : films.without(filmId);
+            if (updated.isEmpty()) {
+                filmsByUser.remove(userId);
+            } else {
+                filmsByUser.put(userId, updated);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * До N самых похожих фильмов по убыванию похожести.
+     */
+    public Neighbors neighbors(long filmId) {
+        Neighbors cached = neighborsCache.get(filmId);
+        if (cached != null) {
+            return cached;
+        }
+        // вычисление и запись в кэш под блокировкой чтения: изменение не вклинится и не оставит устаревший кэш
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = rows.get(filmId);
+            if (row == null) {
+                return Neighbors.EMPTY;
+            }
+            double likes = likeCounts.get(filmId);
+            TopScores top = new TopScores(neighbors);
+            row.forEach((other, together) ->
+                    top.offer(other, together / Math.sqrt(likes * likeCounts.get(other))));
+            TopScores.Ranked ranked = top.drain();
+            Neighbors result = new Neighbors(ranked.ids(), ranked.scores());
+            neighborsCache.put(filmId, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> similar(long filmId, int limit) {
+        long[] ids = neighbors(filmId).filmIds();
+        List<Long> result = new ArrayList<>(Math.min(limit, ids.length));
+        for (int i = 0; i < ids.length && i < limit; i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Рекомендации пользователю: соседи его лайкнутых фильмов, оценка — сумма похожестей.
+     * Уже лайкнутые фильмы исключаются.
+     */
+    public List<Long> recommend(long userId, int limit) {
+        SortedLongSet liked = filmsByUser.getOrDefault(userId, SortedLongSet.EMPTY);
+        Map<Long, Double> scores = new HashMap<>();
+        liked.stream().forEach(filmId -> {
+            Neighbors candidates = neighbors(filmId);
+            for (int i = 0; i < candidates.filmIds().length; i++) {
+                long candidate = candidates.filmIds()[i];
+                if (!liked.contains(candidate)) {
+                    scores.merge(candidate, candidates.scores()[i], Double::sum);
+                }
+            }
+        });
+
+        TopScores top = new TopScores(Math.min(limit, scores.size()));
+        scores.forEach(top::offer);
+        long[] ids = top.drain().ids();
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    public record Neighbors(long[] filmIds, double[] scores) {
+        public static final Neighbors EMPTY = new Neighbors(new long[0], new double[0]);
+    }
+}
@@ -0,0 +1,215 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.model.BrowseFilter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FacetedPopularityIndex.Facets;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Битовые карты фильмов по жанрам, рейтингам MPA и годам выхода для каталожного просмотра.
+ * Номер бита — id фильма: id выдаёт identity-колонка, они плотные, а обход битов сразу идёт по возрастанию id.
+ * Фильмы с id больше {@link #MAX_BIT} в биты не помещаются: они хранятся отдельно по возрастанию id
+ * и проверяются по своим фасетам, а в выдаче идут после фильмов из битовых карт.
+ * <p>
+ * Внутри фасета значения объединяются (ИЛИ), между фасетами пересекаются (И). Счётчик значения фасета —
+ * мощность пересечения его карты с выборкой по остальным фасетам, чтобы клиент видел,
+ * сколько фильмов добавит выбор ещё одного значения.
+ */
+public class FacetBitmapIndex {
+    // на единицу меньше Integer.MAX_VALUE, чтобы bit + 1 при обходе не переполнялся
+    static final long MAX_BIT = Integer.MAX_VALUE - 1;
+
+    private final BitSet all = new BitSet();
+    private final Map<Long, BitSet> byGenre = new HashMap<>();
+    private final Map<Long, BitSet> byMpa = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+    private final Map<Long, Facets> facetsByFilm = new HashMap<>();
+    private final NavigableMap<Long, Facets> sparse = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static FacetBitmapIndex build(Collection<Film> films) {
+        FacetBitmapIndex index = new FacetBitmapIndex();
+        films.forEach(film -> index.add(film.getId(), Facets.of(film)));
+        return index;
+    }
+
+    /**
+     * Добавляет фильм или переносит его биты, если фасеты изменились.
+     */
+    public void put(Film film) {
+        Facets facets = Facets.of(film);
+        lock.writeLock().lock();
+        try {
+            remove(film.getId());
+            add(film.getId(), facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * До limit id фильмов с id больше afterId, общее число найденных и счётчики по жанрам и MPA.
+     */
+    public Result browse(BrowseFilter filter, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet genres = union(byGenre, filter.genreIds());
+            BitSet ratings = union(byMpa, filter.mpaIds());
+            BitSet years = years(filter.yearFrom(), filter.yearTo());
+
+            BitSet matched = intersect(genres, ratings, years);
+            List<Long> filmIds = new ArrayList<>(Math.min(limit, matched.cardinality()));
+            if (afterId < MAX_BIT) {
+                for (int bit = matched.nextSetBit((int) Math.max(0, afterId + 1)); bit >= 0 && filmIds.size() < limit;
+                     bit = matched.nextSetBit(bit + 1)) {
+                    filmIds.add((long) bit);
+                }
+            }
+            int total = matched.cardinality();
+            Map<Long, Integer> genreCounts = counts(byGenre, intersect(ratings, years));
+            Map<Long, Integer> mpaCounts = counts(byMpa, intersect(genres, years));
+
+            for (Map.Entry<Long, Facets> entry : sparse.entrySet()) {
+                long filmId = entry.getKey();
+                Facets facets = entry.getValue();
+                boolean genreMatches = filter.genreIds().isEmpty()
+                        || filter.genreIds().stream().anyMatch(facets.genreIds()::contains);
+                boolean mpaMatches = filter.mpaIds().isEmpty()
+                        || facets.mpaId() != null && filter.mpaIds().contains(facets.mpaId());
+                boolean yearMatches = inRange(facets.year(), filter.yearFrom(), filter.yearTo());
+                if (genreMatches && mpaMatches && yearMatches) {
+                    total++;
+                    if (filmId > afterId && filmIds.size() < limit) {
+                        filmIds.add(filmId);
+                    }
+                }
+                if (mpaMatches && yearMatches) {
+                    facets.genreIds().stream().forEach(genreId -> genreCounts.merge(genreId, 1, Integer::sum));
+                }
+                if (genreMatches && yearMatches && facets.mpaId() != null) {
+                    mpaCounts.merge(facets.mpaId(), 1, Integer::sum);
+                }
+            }
+
+            return new Result(filmIds, total, genreCounts, mpaCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet union(Map<Long, BitSet> bitmaps, Collection<Long> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        values.forEach(value -> {
+            BitSet bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        });
+        return union;
+    }
+
+    private BitSet years(Integer from, Integer to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        SortedMap<Integer, BitSet> range = byYear.subMap(
+                from != null ? from : Integer.MIN_VALUE, true, to != null ? to : Integer.MAX_VALUE, true);
+        BitSet union = new BitSet();
+        range.values().forEach(union::or);
+        return union;
+    }
+
+    private static boolean inRange(Integer year, Integer from, Integer to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return year != null && (from == null || year >= from) && (to == null || year <= to);
+    }
+
+    // null — фасет не задан и ничего не отсекает
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) all.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static Map<Long, Integer> counts(Map<Long, BitSet> bitmaps, BitSet base) {
+        Map<Long, Integer> counts = new TreeMap<>();
+        bitmaps.forEach((value, bitmap) -> {
+            BitSet intersection = (BitSet) bitmap.clone();
+            intersection.and(base);
+            int count = intersection.cardinality();
+            if (count > 0) {
+                counts.put(value, count);
+            }
+        });
+        return counts;
+    }
+
+    private void add(long filmId, Facets facets) {
+        facetsByFilm.put(filmId, facets);
+        if (filmId > MAX_BIT) {
+            sparse.put(filmId, facets);
+            return;
+        }
+        int bit = (int) filmId;
+        all.set(bit);
+        facets.genreIds().stream()
+                .forEach(genreId -> byGenre.computeIfAbsent(genreId, id -> new BitSet()).set(bit));
+        if (facets.mpaId() != null) {
+            byMpa.computeIfAbsent(facets.mpaId(), id -> new BitSet()).set(bit);
+        }
+        if (facets.year() != null) {
+            byYear.computeIfAbsent(facets.year(), year -> new BitSet()).set(bit);
+        }
+    }
+
+    private void remove(long filmId) {
+        Facets previous = facetsByFilm.remove(filmId);
+        if (previous == null) {
+            return;
+        }
+        if (filmId > MAX_BIT) {
+            sparse.remove(filmId);
+            return;
+        }
+        int bit = (int) filmId;
+        all.clear(bit);
+        previous.genreIds().stream().forEach(genreId -> clear(byGenre, genreId, bit));
+        if (previous.mpaId() != null) {
+            clear(byMpa, previous.mpaId(), bit);
+        }
+        if (previous.year() != null) {
+            clear(byYear, previous.year(), bit);
+        }
+    }
+
+    private static <K> void clear(Map<K, BitSet> bitmaps, K key, int bit) {
+        BitSet bitmap = bitmaps.get(key);
+        bitmap.clear(bit);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    public record Result(List<Long> filmIds, int total, Map<Long, Integer> genreCounts, Map<Long, Integer> mpaCounts) {
+    }
+}
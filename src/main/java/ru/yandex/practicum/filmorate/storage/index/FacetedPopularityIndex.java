@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Индекс популярности с отдельным рейтингом на каждый жанр, рейтинг MPA и год выхода.
+ * Отфильтрованный топ обходит самый короткий из подходящих рейтингов и проверяет остальные условия по фильму,
+ * поэтому топ по одному фильтру стоит столько же, сколько общий.
+ * Изменения одного фильма сериализуются на его записи в карте признаков.
+ */
+public class FacetedPopularityIndex {
+    private final PopularityIndex all = new PopularityIndex();
+    private final Map<Long, PopularityIndex> byGenre = new ConcurrentHashMap<>();
+    private final Map<Long, PopularityIndex> byMpa = new ConcurrentHashMap<>();
+    private final Map<Integer, PopularityIndex> byYear = new ConcurrentHashMap<>();
+    private final Map<Long, Facets> facetsByFilm = new ConcurrentHashMap<>();
+
+    /**
+     * Добавляет фильм или переносит его в рейтинги новых признаков, сохраняя число лайков.
+     */
+    public void setFacets(long filmId, Facets facets) {
+        facetsByFilm.compute(filmId, (id, old) -> {
+            long likes = all.getLikes(id);
+            if (old != null) {
+                indexes(old).forEach(index -> index.remove(id));
+            }
+            all.put(id, likes);
+            indexesForUpdate(facets).forEach(index -> index.put(id, likes));
+            return facets;
+        });
+    }
+
+    public void put(long filmId, long likes) {
+        update(filmId, index -> index.put(filmId, likes));
+    }
+
+    public void increment(long filmId, long delta) {
+        update(filmId, index -> index.increment(filmId, delta));
+    }
+
+    public long getLikes(long filmId) {
+        return all.getLikes(filmId);
+    }
+
+    public List<Long> top(int count) {
+        return all.top(count);
+    }
+
+    public List<Long> top(int count, PopularFilter filter) {
+        if (filter.isEmpty()) {
+            return all.top(count);
+        }
+
+        List<PopularityIndex> candidates = new ArrayList<>(3);
+        if (filter.genreId() != null) {
+            candidates.add(byGenre.get((long) filter.genreId()));
+        }
+        if (filter.mpaId() != null) {
+            candidates.add(byMpa.get(filter.mpaId()));
+        }
+        if (filter.year() != null) {
+            candidates.add(byYear.get(filter.year()));
+        }
+        if (candidates.contains(null)) {
+            return List.of();
+        }
+
+        PopularityIndex smallest = candidates.stream()
+                .min(Comparator.comparingInt(PopularityIndex::size))
+                .orElseThrow();
+        if (candidates.size() == 1) {
+            return smallest.top(count);
+        }
+        return smallest.top(count, filmId -> matches(facetsByFilm.get(filmId), filter));
+    }
+
+    /**
+     * Собирает новый индекс; работающий индекс при перестройке не очищается, а подменяется собранным.
+     */
+    public static FacetedPopularityIndex build(Map<Long, Long> likes, Map<Long, Facets> facets) {
+        FacetedPopularityIndex index = new FacetedPopularityIndex();
+        facets.forEach(index::setFacets);
+        likes.forEach(index::put);
+        return index;
+    }
+
+    private void update(long filmId, Consumer<PopularityIndex> action) {
+        facetsByFilm.compute(filmId, (id, facets) -> {
+            action.accept(all);
+            if (facets != null) {
+                indexes(facets).forEach(action);
+            }
+            return facets;
+        });
+    }
+
+    private List<PopularityIndex> indexes(Facets facets) {
+        List<PopularityIndex> result = new ArrayList<>();
+        facets.genreIds().stream().forEach(genreId -> result.add(byGenre.get(genreId)));
+        if (facets.mpaId() != null) {
+            result.add(byMpa.get(facets.mpaId()));
+        }
+        if (facets.year() != null) {
+            result.add(byYear.get(facets.year()));
+        }
+        result.removeIf(Objects::isNull);
+        return result;
+    }
+
+    private List<PopularityIndex> indexesForUpdate(Facets facets) {
+        List<PopularityIndex> result = new ArrayList<>();
+        facets.genreIds().stream()
+                .forEach(genreId -> result.add(byGenre.computeIfAbsent(genreId, id -> new PopularityIndex())));
+        if (facets.mpaId() != null) {
+            result.add(byMpa.computeIfAbsent(facets.mpaId(), id -> new PopularityIndex()));
+        }
+        if (facets.year() != null) {
+            result.add(byYear.computeIfAbsent(facets.year(), id -> new PopularityIndex()));
+        }
+        return result;
+    }
+
+    private static boolean matches(Facets facets, PopularFilter filter) {
+        return facets != null
+                && (filter.genreId() == null || facets.genreIds().contains(filter.genreId()))
+                && (filter.mpaId() == null || filter.mpaId().equals(facets.mpaId()))
+                && (filter.year() == null || filter.year().equals(facets.year()));
+    }
+
+    /**
+     * Признаки фильма, по которым строятся рейтинги.
+     */
+    public record Facets(SortedLongSet genreIds, Long mpaId, Integer year) {
+        public static Facets of(Film film) {
+            SortedLongSet.Builder genreIds = SortedLongSet.builder();
+            if (film.getGenres() != null) {
+                film.getGenres().stream()
+                        .map(Genre::getId)
+                        .filter(Objects::nonNull)
+                        .forEach(genreIds::add);
+            }
+            return new Facets(genreIds.build(),
+                    film.getRating() != null ? film.getRating().getId() : null,
+                    film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null);
+        }
+    }
+}
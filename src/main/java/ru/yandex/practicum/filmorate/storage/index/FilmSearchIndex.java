@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов с ранжированием BM25.
+ * <p>
+ * Токенизатор режет текст по небуквенным символам, приводит к нижнему регистру, заменяет «ё» на «е»,
+ * выбрасывает частые служебные слова и отрезает у слов типичные окончания русского и английского языка.
+ * Словарь термов отсортирован, поэтому слово запроса длиной от {@value #MIN_PREFIX} символов
+ * дополнительно совпадает со всеми термами, которые с него начинаются, — с пониженным весом.
+ * Вхождения в название весят в {@value #NAME_WEIGHT} раза больше, чем вхождения в описание.
+ */
+public class FilmSearchIndex {
+    static final int NAME_WEIGHT = 3;
+    static final int MIN_PREFIX = 3;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "на", "с", "со", "к", "ко", "о", "об", "от", "по", "за", "из", "у", "не", "но",
+            "а", "что", "как", "это", "для", "до", "же", "ли", "бы",
+            "a", "an", "the", "of", "and", "or", "in", "on", "at", "to", "for", "is", "by", "with");
+
+    // окончания проверяются от длинных к коротким, отрезается первое подошедшее
+    private static final String[] RUSSIAN_ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией",
+            "ий", "ый", "ой", "ей", "ая", "яя", "ое", "ее", "ые", "ие", "ов", "ев", "ах", "ях", "ам", "ям",
+            "ом", "ем", "ью", "ия", "а", "я", "о", "е", "ы", "и", "у", "ю", "ь"};
+    private static final String[] ENGLISH_ENDINGS = {"'s", "s"};
+    private static final int MIN_STEM = 3;
+
+    private final NavigableMap<String, LongIntHashMap> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Полная сборка. Токенизация — самая дорогая часть — идёт параллельно в общем пуле fork-join,
+     * слияние готовых документов в словарь последовательное.
+     */
+    public static FilmSearchIndex build(Collection<Film> films) {
+        List<Document> parsed = films.parallelStream()
+                .map(Document::of)
+                .toList();
+        FilmSearchIndex index = new FilmSearchIndex();
+        parsed.forEach(index::add);
+        return index;
+    }
+
+    /**
+     * Добавляет фильм или заменяет ранее проиндексированную версию.
+     */
+    public void put(Film film) {
+        Document document = Document.of(film);
+        lock.writeLock().lock();
+        try {
+            remove(document.filmId());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * До limit фильмов по убыванию BM25. Для каждого слова запроса в счёт идёт лучшее из совпадений —
+     * точное или по префиксу; оценки разных слов складываются.
+     */
+    public List<Match> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documents.size();
+            for (String term : terms.stream().distinct().toList()) {
+                Map<Long, Double> best = new HashMap<>();
+                for (Map.Entry<String, LongIntHashMap> entry : expand(term)) {
+                    double weight = entry.getKey().equals(term) ? 1.0 : PREFIX_WEIGHT;
+                    LongIntHashMap films = entry.getValue();
+                    double idf = Math.log(1 + (documents.size() - films.size() + 0.5) / (films.size() + 0.5));
+                    films.forEach((filmId, frequency) -> {
+                        double length = documents.get(filmId).length();
+                        double score = weight * idf * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * length / averageLength));
+                        best.merge(filmId, score, Math::max);
+                    });
+                }
+                best.forEach((filmId, score) -> scores.merge(filmId, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        TopScores top = new TopScores(Math.min(limit, scores.size()));
+        scores.forEach(top::offer);
+        TopScores.Ranked ranked = top.drain();
+        List<Match> matches = new ArrayList<>(ranked.ids().length);
+        for (int i = 0; i < ranked.ids().length; i++) {
+            matches.add(new Match(ranked.ids()[i], ranked.scores()[i]));
+        }
+        return matches;
+    }
+
+    /**
+     * Разбивает текст на нормализованные термы в порядке появления, с повторами.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length()
+                    && (Character.isLetterOrDigit(normalized.charAt(i)) || normalized.charAt(i) == '\'' && start >= 0);
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(word)) {
+                    terms.add(stem(word));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    static String stem(String word) {
+        String[] endings = isCyrillic(word) ? RUSSIAN_ENDINGS : ENGLISH_ENDINGS;
+        for (String ending : endings) {
+            if (word.length() - ending.length() >= MIN_STEM && word.endsWith(ending)) {
+                String stem = word.substring(0, word.length() - ending.length());
+                // "class" не превращаем в "clas"
+                return ending.equals("s") && stem.endsWith("s") ? word : stem;
+            }
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(String word) {
+        return Character.UnicodeBlock.of(word.charAt(0)) == Character.UnicodeBlock.CYRILLIC;
+    }
+
+    private List<Map.Entry<String, LongIntHashMap>> expand(String term) {
+        if (term.length() < MIN_PREFIX) {
+            LongIntHashMap exact = postings.get(term);
+            return exact == null ? List.of() : List.of(Map.entry(term, exact));
+        }
+        List<Map.Entry<String, LongIntHashMap>> expansions = new ArrayList<>();
+        for (Map.Entry<String, LongIntHashMap> entry : postings.tailMap(term, true).entrySet()) {
+            if (!entry.getKey().startsWith(term) || expansions.size() == MAX_EXPANSIONS) {
+                break;
+            }
+            expansions.add(entry);
+        }
+        return expansions;
+    }
+
+    private void add(Document document) {
+        document.frequencies().forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new LongIntHashMap()).add(document.filmId(), frequency));
+        documents.put(document.filmId(), document);
+        totalLength += document.length();
+    }
+
+    private void remove(long filmId) {
+        Document previous = documents.remove(filmId);
+        if (previous == null) {
+            return;
+        }
+        previous.frequencies().forEach((term, frequency) -> {
+            LongIntHashMap films = postings.get(term);
+            films.add(filmId, -frequency);
+            if (films.size() == 0) {
+                postings.remove(term);
+            }
+        });
+        totalLength -= previous.length();
+    }
+
+    public record Match(long filmId, double score) {
+    }
+
+    private record Document(long filmId, Map<String, Integer> frequencies, int length) {
+        static Document of(Film film) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokenize(film.getName()).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+            tokenize(film.getDescription()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+            return new Document(film.getId(), frequencies, length);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * «Возможно, вы знакомы» поверх {@link FriendshipGraph}: друзья друзей, ранжированные по числу общих друзей.
+ * Друзья с числом друзей больше max-degree («знаменитости») при обходе не раскрываются,
+ * поэтому обход ограничен max-degree × max-degree рёбрами.
+ * <p>
+ * Лучшие cache-size подсказок пользователя кэшируются. Изменение связи u → f задевает подсказки самого u
+ * и тех, кто дружит с u (u для них — промежуточный узел), остальные записи кэша не трогаются.
+ * На время расчёта в кэш кладётся метка пользователя; сброс её удаляет, и результат, посчитанный
+ * по графу до изменения, не кэшируется. Изменения чужих связей кэширование не блокируют.
+ */
+public class FriendSuggestionIndex {
+    private final FriendshipGraph graph;
+    private final int maxDegree;
+    private final int cacheSize;
+
+    private final ConcurrentMap<Long, Entry> cache = new ConcurrentHashMap<>();
+
+    public FriendSuggestionIndex(FriendshipGraph graph, int maxDegree, int cacheSize) {
+        this.graph = graph;
+        this.maxDegree = maxDegree;
+        this.cacheSize = cacheSize;
+    }
+
+    public List<Long> suggest(long userId, int limit) {
+        Entry entry = cache.get(userId);
+        long[] suggestions = entry != null ? entry.suggestions() : null;
+        if (suggestions == null || suggestions.length < limit && suggestions.length == cacheSize) {
+            Entry marker = new Entry(null);
+            boolean owner = limit <= cacheSize && entry == null && cache.putIfAbsent(userId, marker) == null;
+            try {
+                suggestions = compute(userId, Math.max(limit, cacheSize));
+            } finally {
+                // метки нет — за время расчёта связи изменились, такой результат не кэшируем
+                if (owner && (suggestions == null || !cache.replace(userId, marker, new Entry(suggestions)))) {
+                    cache.remove(userId, marker);
+                }
+            }
+        }
+
+        List<Long> result = new ArrayList<>(Math.min(limit, suggestions.length));
+        for (int i = 0; i < suggestions.length && i < limit; i++) {
+            result.add(suggestions[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Вызывается после изменения друзей пользователя в графе.
+     *
+     * @param degreeBefore число друзей пользователя до изменения
+     */
+    public void invalidate(long userId, int degreeBefore) {
+        cache.remove(userId);
+        // знаменитость не раскрывается ни до, ни после изменения — подсказки подписчиков от неё не зависят
+        if (degreeBefore <= maxDegree || graph.friends(userId).size() <= maxDegree) {
+            graph.followers(userId).stream().forEach(cache::remove);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private long[] compute(long userId, int limit) {
+        SortedLongSet friends = graph.friends(userId);
+        LongIntHashMap mutualCounts = new LongIntHashMap();
+        int expanded = 0;
+        for (int i = 0; i < friends.size() && expanded < maxDegree; i++) {
+            SortedLongSet friendsOfFriend = graph.friends(friends.get(i));
+            if (friendsOfFriend.size() > maxDegree) {
+                continue;
+            }
+            expanded++;
+            friendsOfFriend.stream()
+                    .filter(candidate -> candidate != userId && !friends.contains(candidate))
+                    .forEach(candidate -> mutualCounts.add(candidate, 1));
+        }
+
+        TopScores top = new TopScores(Math.min(limit, mutualCounts.size()));
+        mutualCounts.forEach(top::offer);
+        return top.drain().ids();
+    }
+
+    // сравнивается по ссылке: метка расчёта совпадает только сама с собой, suggestions у неё null
+    private static final class Entry {
+        private final long[] suggestions;
+
+        private Entry(long[] suggestions) {
+            this.suggestions = suggestions;
+        }
+
+        long[] suggestions() {
+            return suggestions;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя хранятся исходящие (его друзья)
+ * и входящие (кто добавил его в друзья) рёбра в виде {@link SortedLongSet}.
+ */
+public class FriendshipGraph {
+    private final Map<Long, SortedLongSet> friends = new ConcurrentHashMap<>();
+    private final Map<Long, SortedLongSet> followers = new ConcurrentHashMap<>();
+
+    public void add(long userId, long friendId) {
+        friends.compute(userId, (id, set) -> (set == null ? SortedLongSet.EMPTY : set).with(friendId));
+        followers.compute(friendId, (id, set) -> (set == null ? SortedLongSet.EMPTY : set).with(userId));
+    }
+
+    public void remove(long userId, long friendId) {
+        friends.computeIfPresent(userId, (id, set) -> emptyToNull(set.without(friendId)));
+        followers.computeIfPresent(friendId, (id, set) -> emptyToNull(set.without(userId)));
+    }
+
+    public SortedLongSet friends(long userId) {
+        return friends.getOrDefault(userId, SortedLongSet.EMPTY);
+    }
+
+    public SortedLongSet followers(long userId) {
+        return followers.getOrDefault(userId, SortedLongSet.EMPTY);
+    }
+
+    public boolean contains(long userId, long friendId) {
+        return friends(userId).contains(friendId);
+    }
+
+    public SortedLongSet common(long userId, long otherId) {
+        return friends(userId).intersect(friends(otherId));
+    }
+
+    /**
+     * Полностью заменяет граф: на входе друзья каждого пользователя, обратные рёбра строятся здесь же.
+     */
+    public void rebuild(Map<Long, SortedLongSet> friendsByUser) {
+        Map<Long, SortedLongSet.Builder> followerBuilders = new HashMap<>();
+        friendsByUser.forEach((userId, userFriends) -> userFriends.stream()
+                .forEach(friendId -> followerBuilders.computeIfAbsent(friendId, id -> SortedLongSet.builder())
+                        .add(userId)));
+        friends.clear();
+        followers.clear();
+        friendsByUser.forEach((userId, userFriends) -> {
+            if (!userFriends.isEmpty()) {
+                friends.put(userId, userFriends);
+            }
+        });
+        followerBuilders.forEach((id, builder) -> followers.put(id, builder.build()));
+    }
+
+    private static SortedLongSet emptyToNull(SortedLongSet set) {
+        return set.isEmpty() ? null : set;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неизменяемый справочник с небольшими целочисленными id: элементы лежат в массиве по индексу id.
+ */
+public final class IdDictionary<T> {
+    private final Object[] byId;
+    private final List<T> values;
+
+    public IdDictionary(Collection<T> source, ToIntFunction<T> idExtractor) {
+        int maxId = source.stream().mapToInt(idExtractor).max().orElse(-1);
+        if (source.stream().mapToInt(idExtractor).anyMatch(id -> id < 0)) {
+            throw new IllegalArgumentException("Id справочника должны быть неотрицательными");
+        }
+        byId = new Object[maxId + 1];
+        source.forEach(value -> byId[idExtractor.applyAsInt(value)] = value);
+        values = source.stream()
+                .sorted(Comparator.comparingInt(idExtractor))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<T> get(long id) {
+        if (id < 0 || id >= byId.length) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((T) byId[(int) id]);
+    }
+
+    public List<T> values() {
+        return values;
+    }
+}
@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Лайки фильмов: по id фильма — отсортированный растущий массив id пользователей.
+ * <p>
+ * Лайк меняет массив на месте: двоичный поиск и сдвиг хвоста, новый массив выделяется только при росте
+ * вдвое или сжатии. Так лайк к фильму с миллионом лайков не копирует 8 МБ. Изменения одного фильма
+ * идут под записью его {@link StampedLock}, чтение — оптимистичное и без блокировок: если во время
+ * чтения прошла запись, оно повторяется под блокировкой чтения.
+ * Наружу отдаются неизменяемые снимки {@link SortedLongSet}.
+ */
+public class LikeIndex {
+    private static final int MIN_CAPACITY = 4;
+
+    private final Map<Long, Likes> likesByFilm = new ConcurrentHashMap<>();
+
+    public void put(long filmId, SortedLongSet likes) {
+        likesByFilm.put(filmId, new Likes(likes.toArray()));
+    }
+
+    public boolean add(long filmId, long userId) {
+        return likesByFilm.computeIfAbsent(filmId, id -> new Likes(new long[0])).add(userId);
+    }
+
+    public boolean remove(long filmId, long userId) {
+        Likes likes = likesByFilm.get(filmId);
+        return likes != null && likes.remove(userId);
+    }
+
+    public void removeFilm(long filmId) {
+        likesByFilm.remove(filmId);
+    }
+
+    /**
+     * Снимок лайков фильма; копирует массив, поэтому для счётчика и проверки лайка есть отдельные методы.
+     */
+    public SortedLongSet get(long filmId) {
+        Likes likes = likesByFilm.get(filmId);
+        return likes == null ? SortedLongSet.EMPTY : likes.snapshot();
+    }
+
+    public void forEach(BiConsumer<Long, SortedLongSet> action) {
+        likesByFilm.forEach((filmId, likes) -> action.accept(filmId, likes.snapshot()));
+    }
+
+    public int count(long filmId) {
+        Likes likes = likesByFilm.get(filmId);
+        return likes == null ? 0 : likes.size();
+    }
+
+    public boolean contains(long filmId, long userId) {
+        Likes likes = likesByFilm.get(filmId);
+        return likes != null && likes.contains(userId);
+    }
+
+    /**
+     * id пользователей больше {@code afterUserId} по возрастанию, не более {@code limit} штук.
+     */
+    public List<Long> after(long filmId, long afterUserId, int limit) {
+        Likes likes = likesByFilm.get(filmId);
+        return likes == null ? List.of() : likes.after(afterUserId, limit);
+    }
+
+    /**
+     * Пользователи, лайкнувшие оба фильма.
+     */
+    public SortedLongSet common(long filmId, long otherFilmId) {
+        return get(filmId).intersect(get(otherFilmId));
+    }
+
+    private static final class Likes {
+        private final StampedLock lock = new StampedLock();
+        private long[] values;
+        private int size;
+
+        private Likes(long[] sorted) {
+            values = sorted.length < MIN_CAPACITY ? Arrays.copyOf(sorted, MIN_CAPACITY) : sorted;
+            size = sorted.length;
+        }
+
+        boolean add(long userId) {
+            long stamp = lock.writeLock();
+            try {
+                int index = Arrays.binarySearch(values, 0, size, userId);
+                if (index >= 0) {
+                    return false;
+                }
+                int insertAt = -index - 1;
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+                values[insertAt] = userId;
+                size++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long userId) {
+            long stamp = lock.writeLock();
+            try {
+                int index = Arrays.binarySearch(values, 0, size, userId);
+                if (index < 0) {
+                    return false;
+                }
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+                if (values.length > MIN_CAPACITY && size < values.length / 4) {
+                    values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, values.length / 2));
+                }
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            return read(() -> size);
+        }
+
+        boolean contains(long userId) {
+            return read(() -> Arrays.binarySearch(values, 0, size, userId) >= 0);
+        }
+
+        List<Long> after(long afterUserId, int limit) {
+            return read(() -> {
+                long[] array = values;
+                int length = size;
+                int from = Arrays.binarySearch(array, 0, length, afterUserId);
+                from = from >= 0 ? from + 1 : -from - 1;
+                int to = (int) Math.min(length, (long) from + Math.max(limit, 0));
+                List<Long> result = new ArrayList<>(Math.max(to - from, 0));
+                for (int i = from; i < to; i++) {
+                    result.add(array[i]);
+                }
+                return result;
+            });
+        }
+
+        SortedLongSet snapshot() {
+            return read(() -> SortedLongSet.ofSorted(Arrays.copyOf(values, size)));
+        }
+
+        // поля при оптимистичном чтении могут быть несогласованы, вплоть до выхода за границы массива:
+        // такой результат отбрасывается проверкой штампа
+        private <T> T read(Supplier<T> reader) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.get();
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return reader.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
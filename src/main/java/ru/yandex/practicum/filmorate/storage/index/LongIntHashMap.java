@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+
+/**
+ * Разреженная карта long → int на открытой адресации без упаковки в объекты.
+ * Ключ с нулевым значением удаляется сдвигом последующих элементов, поэтому надгробий нет.
+ * Не потокобезопасна: синхронизация на стороне владельца.
+ */
+final class LongIntHashMap {
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap() {
+        this(4);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int get(long key) {
+        for (int i = slot(key); keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Прибавляет delta к значению ключа; ключ, значение которого стало нулём, удаляется.
+     *
+     * @return новое значение
+     */
+    int add(long key, int delta) {
+        int i = slot(key);
+        for (; keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int value = values[i] + delta;
+                if (value == 0) {
+                    removeAt(i);
+                } else {
+                    values[i] = value;
+                }
+                return value;
+            }
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+        return delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        size--;
+        int gap = index;
+        for (int i = (index + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            // элемент можно сдвинуть в дыру, только если дыра не раньше его домашней ячейки
+            if (((i - slot(keys[i])) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+        values[gap] = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @FunctionalInterface
+    interface Consumer {
+        void accept(long key, int value);
+    }
+}
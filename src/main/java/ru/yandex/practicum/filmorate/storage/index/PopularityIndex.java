@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Упорядоченный по числу лайков индекс фильмов.
+ * Порядок совпадает с выдачей /films/popular: лайки по убыванию, затем id по возрастанию.
+ */
+public class PopularityIndex {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final Map<Long, Long> likesByFilm = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    public void put(long filmId, long likes) {
+        likesByFilm.compute(filmId, (id, old) -> {
+            ranking.add(new Entry(id, likes));
+            if (old != null && old != likes) {
+                ranking.remove(new Entry(id, old));
+            }
+            return likes;
+        });
+    }
+
+    public void increment(long filmId, long delta) {
+        likesByFilm.compute(filmId, (id, old) -> {
+            long likes = Math.max(0, (old == null ? 0 : old) + delta);
+            ranking.add(new Entry(id, likes));
+            if (old != null && old != likes) {
+                ranking.remove(new Entry(id, old));
+            }
+            return likes;
+        });
+    }
+
+    public void remove(long filmId) {
+        likesByFilm.computeIfPresent(filmId, (id, old) -> {
+            ranking.remove(new Entry(id, old));
+            return null;
+        });
+    }
+
+    public long getLikes(long filmId) {
+        return likesByFilm.getOrDefault(filmId, 0L);
+    }
+
+    public int size() {
+        return likesByFilm.size();
+    }
+
+    public List<Long> top(int count) {
+        return top(count, filmId -> true);
+    }
+
+    /**
+     * Первые count фильмов рейтинга, прошедших фильтр; рейтинг обходится до набора count совпадений.
+     */
+    public List<Long> top(int count, LongPredicate filter) {
+        List<Long> result = new ArrayList<>(Math.min(Math.max(count, 0), likesByFilm.size()));
+        if (count <= 0) {
+            return result;
+        }
+        // во время обновления фильм может кратковременно встречаться дважды: новая запись добавляется до удаления старой
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (seen.add(entry.filmId()) && filter.test(entry.filmId())) {
+                result.add(entry.filmId());
+                if (result.size() == count) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+}
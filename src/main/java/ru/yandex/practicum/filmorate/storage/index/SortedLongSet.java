@@ -0,0 +1,279 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+/**
+ * Неизменяемое множество long на отсортированном массиве без повторов.
+ * Занимает 8 байт на элемент вместо ~50 у HashSet&lt;Long&gt;; изменения возвращают новый экземпляр,
+ * поэтому опубликованное множество можно читать из любых потоков без блокировок.
+ */
+public final class SortedLongSet {
+    public static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+    private final long[] values;
+
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    public static SortedLongSet of(long... values) {
+        return builder(values.length).addAll(values).build();
+    }
+
+    public static SortedLongSet copyOf(Iterable<Long> values) {
+        Builder builder = builder();
+        values.forEach(builder::add);
+        return builder.build();
+    }
+
+    // массив уже отсортирован, без повторов и больше нигде не используется
+    static SortedLongSet ofSorted(long[] values) {
+        return values.length == 0 ? EMPTY : new SortedLongSet(values);
+    }
+
+    public static Builder builder() {
+        return new Builder(16);
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Копирует весь массив — для небольших множеств; часто меняемые большие множества живут в {@link LikeIndex}.
+     */
+    public SortedLongSet with(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] result = new long[values.length + 1];
+        System.arraycopy(values, 0, result, 0, insertAt);
+        result[insertAt] = value;
+        System.arraycopy(values, insertAt, result, insertAt + 1, values.length - insertAt);
+        return new SortedLongSet(result);
+    }
+
+    public SortedLongSet without(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+        long[] result = new long[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return new SortedLongSet(result);
+    }
+
+    public SortedLongSet intersect(SortedLongSet other) {
+        long[] result = new long[Math.min(size(), other.size())];
+        int count = intersect(other, result);
+        return count == 0 ? EMPTY : new SortedLongSet(Arrays.copyOf(result, count));
+    }
+
+    public int intersectionSize(SortedLongSet other) {
+        return intersect(other, null);
+    }
+
+    /**
+     * Элементы больше {@code after} по возрастанию, не более {@code limit} штук.
+     */
+    public List<Long> after(long after, int limit) {
+        int from = Arrays.binarySearch(values, after);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = (int) Math.min(values.length, (long) from + Math.max(limit, 0));
+        List<Long> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(values[i]);
+        }
+        return result;
+    }
+
+    public long[] toArray() {
+        return values.clone();
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(values);
+    }
+
+    /**
+     * Неизменяемое представление в виде Set&lt;Long&gt;: элементы упаковываются только при обходе.
+     */
+    public Set<Long> asSet() {
+        return new SetView(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof SortedLongSet other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+    private int intersect(SortedLongSet other, long[] out) {
+        long[] small = values.length <= other.values.length ? values : other.values;
+        long[] large = small == values ? other.values : values;
+        int count = 0;
+
+        // при сильно разных размерах выгоднее искать элементы меньшего массива двоичным поиском
+        if (small.length * 16 < large.length) {
+            int from = 0;
+            for (long value : small) {
+                int index = Arrays.binarySearch(large, from, large.length, value);
+                if (index >= 0) {
+                    if (out != null) {
+                        out[count] = value;
+                    }
+                    count++;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+                if (from >= large.length) {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[count] = small[i];
+                }
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    public static final class Builder {
+        private long[] buffer;
+        private int size;
+        private boolean sorted = true;
+
+        private Builder(int expectedSize) {
+            buffer = new long[Math.max(expectedSize, 4)];
+        }
+
+        public Builder add(long value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            if (size > 0 && buffer[size - 1] >= value) {
+                sorted = false;
+            }
+            buffer[size++] = value;
+            return this;
+        }
+
+        public Builder addAll(long... values) {
+            for (long value : values) {
+                add(value);
+            }
+            return this;
+        }
+
+        public SortedLongSet build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            long[] result = Arrays.copyOf(buffer, size);
+            if (!sorted) {
+                Arrays.sort(result);
+                int unique = 1;
+                for (int i = 1; i < result.length; i++) {
+                    if (result[i] != result[unique - 1]) {
+                        result[unique++] = result[i];
+                    }
+                }
+                if (unique < result.length) {
+                    result = Arrays.copyOf(result, unique);
+                }
+            }
+            return new SortedLongSet(result);
+        }
+    }
+
+    private static final class SetView extends AbstractSet<Long> {
+        private final SortedLongSet set;
+
+        private SetView(SortedLongSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Long value && set.contains(value);
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            return new Iterator<>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < set.values.length;
+                }
+
+                @Override
+                public Long next() {
+                    if (index >= set.values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return set.values[index++];
+                }
+            };
+        }
+    }
+}
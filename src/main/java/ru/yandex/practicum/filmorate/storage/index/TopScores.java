@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+/**
+ * Ограниченная куча для отбора лучших N элементов по убыванию оценки (при равенстве — по возрастанию id).
+ * В корне лежит худший из отобранных, поэтому каждый кандидат сравнивается за O(1), а вставка стоит O(log N).
+ */
+final class TopScores {
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    TopScores(int capacity) {
+        ids = new long[capacity];
+        scores = new double[capacity];
+    }
+
+    void offer(long id, double score) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (worse(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Извлекает отобранные элементы от лучшего к худшему; куча после этого пуста.
+     */
+    Ranked drain() {
+        int count = size;
+        long[] rankedIds = new long[count];
+        double[] rankedScores = new double[count];
+        for (int i = count - 1; i >= 0; i--) {
+            rankedIds[i] = ids[0];
+            rankedScores[i] = scores[0];
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return new Ranked(rankedIds, rankedScores);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(ids[index], scores[index], ids[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && worse(ids[right], scores[right], ids[left], scores[left])) {
+                worst = right;
+            }
+            if (!worse(ids[worst], scores[worst], ids[index], scores[index])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    private static boolean worse(long id, double score, long otherId, double otherScore) {
+        return score < otherScore || score == otherScore && id > otherId;
+    }
+
+    record Ranked(long[] ids, double[] scores) {
+    }
+}
@@ -0,0 +1,7 @@
+-- денормализованный счётчик лайков; IF NOT EXISTS — для баз, где он появился ещё через schema.sql
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE films f
+SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id);
+
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films (likes_count DESC, film_id);
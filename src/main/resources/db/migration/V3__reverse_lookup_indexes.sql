@@ -0,0 +1,10 @@
+-- первичные ключи покрывают только прямые выборки; обратные ищут по второй колонке
+
+-- "что лайкнул пользователь" и ON DELETE CASCADE из users
+CREATE INDEX IF NOT EXISTS idx_film_likes_user ON film_likes (user_id, film_id);
+
+-- "кто добавил пользователя в друзья" и ON DELETE CASCADE из users
+CREATE INDEX IF NOT EXISTS idx_friendships_friend ON friendships (friend_id, user_id);
+
+-- фильмы жанра
+CREATE INDEX IF NOT EXISTS idx_film_genres_genre ON film_genres (genre_id, film_id);
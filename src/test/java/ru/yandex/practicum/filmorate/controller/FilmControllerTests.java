@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
@@ -7,13 +8,20 @@ import jakarta.validation.ConstraintViolation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.BrowseService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.LikeIngestionPipeline;
 import ru.yandex.practicum.filmorate.service.MpaRatingService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.validation.ValidationGroups;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Set;
 
@@ -37,10 +45,13 @@ class FilmControllerTests {
                 filmStorage,
                 userStorage,
                 genreService,
-                mpaRatingService
+                mpaRatingService,
+                mock(LikeIngestionPipeline.class),
+                event -> { }
         );
 
-        controller = new FilmController(filmService);
+        controller = new FilmController(filmService, mock(RecommendationService.class),
+                mock(SearchService.class), mock(BrowseService.class), new ObjectMapper().findAndRegisterModules());
         ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
         validator = factory.getValidator();
     }
@@ -68,6 +79,26 @@ class FilmControllerTests {
         assertNotNull(saved.getId());
     }
 
+    @Test
+    void shouldExportFilmsAsNdjsonWithoutClosingResponseStream() throws IOException {
+        controller.addFilm(validFilm());
+        controller.addFilm(validFilm());
+        boolean[] closed = new boolean[1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        controller.export().getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{\"id\":"));
+        assertFalse(closed[0], "Поток ответа закрывает контейнер, а не генератор");
+    }
+
     @Test
     void shouldFailIfNameEmpty() {
         Film film = validFilm();
@@ -7,6 +7,7 @@ import jakarta.validation.ConstraintViolation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
@@ -29,7 +30,7 @@ class UserControllerTests {
         FriendshipStorage friendshipStorage = mock(FriendshipStorage.class);
 
         UserService userService = new UserService(userStorage, friendshipStorage);
-        controller = new UserController(userService);
+        controller = new UserController(userService, mock(RecommendationService.class));
         ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
         validator = factory.getValidator();
     }
@@ -1,29 +1,95 @@
 package ru.yandex.practicum.filmorate.dal;
 
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.LikeOperationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.SortedLongSet;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import(FilmDbStorage.class)
+@Import({FilmDbStorage.class, FilmDetailsLoader.class, UserDbStorage.class})
 class FilmDbStorageTests {
 
     @Autowired
     private final FilmDbStorage filmDbStorage;
 
+    @Autowired
+    private final UserDbStorage userDbStorage;
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private final PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        // данные каждого теста откатываются, поэтому индекс популярности строится заново
+        filmDbStorage.rebuildPopularityIndex();
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2025, 12, 1));
+        film.setDuration(120);
+        MpaRating g = new MpaRating();
+        g.setId(1L);
+        film.setRating(g);
+        return filmDbStorage.addFilm(film);
+    }
+
+    // лайки меняют индекс популярности после коммита, а транзакция теста откатывается — индекс догоняется из БД
+    private void commitLikes() {
+        filmDbStorage.rebuildPopularityIndex();
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userDbStorage.addUser(user);
+    }
+
     @Test
     void shouldAddFilm() {
         Film film = new Film();
@@ -90,10 +156,10 @@ class FilmDbStorageTests {
         g.setName("G");
         film.setRating(g);
 
-        filmDbStorage.addFilm(film);
+        long id = filmDbStorage.addFilm(film).getId();
 
         Film updatedFilm = new Film();
-        updatedFilm.setId(1L);
+        updatedFilm.setId(id);
         updatedFilm.setName("New film");
         updatedFilm.setDescription("New description");
         updatedFilm.setReleaseDate(LocalDate.of(2025, 12, 2));
@@ -104,7 +170,7 @@ class FilmDbStorageTests {
 
         filmDbStorage.updateFilm(updatedFilm);
 
-        Optional<Film> filmOptional = filmDbStorage.getById(1L);
+        Optional<Film> filmOptional = filmDbStorage.getById(id);
 
         assertThat(filmOptional)
                 .isPresent()
@@ -145,4 +211,339 @@ class FilmDbStorageTests {
                 .extracting(Film::getName)
                 .containsExactlyInAnyOrder("Film 1", "Film 2");
     }
+
+    @Test
+    void shouldGetPopularFilmsOrderedByLikes() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        Film third = film("Film 3");
+        User alice = user("alice");
+        User bob = user("bob");
+
+        filmDbStorage.addLike(third.getId(), alice.getId());
+        filmDbStorage.addLike(third.getId(), bob.getId());
+        filmDbStorage.addLike(second.getId(), alice.getId());
+        commitLikes();
+
+        assertThat(filmDbStorage.getPopularFilms(10))
+                .extracting(Film::getId)
+                .containsExactly(third.getId(), second.getId(), first.getId());
+
+        filmDbStorage.removeLike(third.getId(), alice.getId());
+        filmDbStorage.removeLike(third.getId(), bob.getId());
+        commitLikes();
+
+        assertThat(filmDbStorage.getPopularFilms(2))
+                .extracting(Film::getId)
+                .containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreMpaAndYear() {
+        Film comedy = film("Comedy");
+        Film drama = film("Drama");
+        Film oldComedy = film("Old comedy");
+        comedy.setGenres(new ArrayList<>(List.of(new Genre(1, null))));
+        drama.setGenres(new ArrayList<>(List.of(new Genre(2, null))));
+        oldComedy.setGenres(new ArrayList<>(List.of(new Genre(1, null))));
+        oldComedy.setReleaseDate(LocalDate.of(1990, 5, 1));
+        MpaRating pg = new MpaRating();
+        pg.setId(2L);
+        oldComedy.setRating(pg);
+        filmDbStorage.updateFilm(comedy);
+        filmDbStorage.updateFilm(drama);
+        filmDbStorage.updateFilm(oldComedy);
+        User alice = user("alice");
+        User bob = user("bob");
+        filmDbStorage.addLike(oldComedy.getId(), alice.getId());
+        filmDbStorage.addLike(oldComedy.getId(), bob.getId());
+        filmDbStorage.addLike(drama.getId(), alice.getId());
+        commitLikes();
+
+        assertThat(filmDbStorage.getPopularFilms(10, new PopularFilter(1, null, null), FilmView.COMPACT))
+                .extracting(Film::getName)
+                .containsExactly("Old comedy", "Comedy");
+        assertThat(filmDbStorage.getPopularFilms(10, new PopularFilter(1, 1L, null), FilmView.COMPACT))
+                .extracting(Film::getName)
+                .containsExactly("Comedy");
+        assertThat(filmDbStorage.getPopularFilms(10, new PopularFilter(null, null, 2025), FilmView.COMPACT))
+                .extracting(Film::getName)
+                .containsExactly("Drama", "Comedy");
+        assertThat(filmDbStorage.getPopularFilms(10, new PopularFilter(6, null, null), FilmView.COMPACT)).isEmpty();
+
+        assertThat(filmDbStorage.getPopularFilms(1, new PopularFilter(1, 2L, 1990), FilmView.COMPACT))
+                .extracting(Film::getName, Film::getLikesCount)
+                .containsExactly(tuple("Old comedy", 2L));
+    }
+
+    @Test
+    void shouldKeepLikesCountInSync() {
+        Film film = film("Film");
+        User alice = user("alice");
+        User bob = user("bob");
+
+        filmDbStorage.addLike(film.getId(), alice.getId());
+        filmDbStorage.addLike(film.getId(), bob.getId());
+        filmDbStorage.removeLike(film.getId(), bob.getId());
+
+        assertThat(likesCount(film.getId())).isEqualTo(1L);
+        assertThatThrownBy(() -> filmDbStorage.addLike(film.getId(), alice.getId()))
+                .isInstanceOf(LikeOperationException.class);
+    }
+
+    @Test
+    void shouldRepairDriftedLikesCount() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        User alice = user("alice");
+        filmDbStorage.addLike(second.getId(), alice.getId());
+
+        jdbcTemplate.update("UPDATE films SET likes_count = 5 WHERE film_id = ?", first.getId());
+        filmDbStorage.rebuildPopularityIndex();
+
+        assertThat(filmDbStorage.repairLikesCounts()).isEqualTo(1);
+        assertThat(likesCount(first.getId())).isZero();
+        assertThat(filmDbStorage.getPopularFilms(1))
+                .extracting(Film::getId)
+                .containsExactly(second.getId());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldUpdatePopularityIndexOnlyAfterCommit() {
+        Film first = film("Committed 1");
+        Film second = film("Committed 2");
+        User alice = user("committed-alice");
+        User bob = user("committed-bob");
+        try {
+            filmDbStorage.addLike(second.getId(), alice.getId());
+
+            assertThat(filmDbStorage.getPopularFilms(1))
+                    .extracting(Film::getId)
+                    .containsExactly(second.getId());
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                filmDbStorage.addLike(first.getId(), alice.getId());
+                filmDbStorage.addLike(first.getId(), bob.getId());
+                status.setRollbackOnly();
+            });
+
+            assertThat(likesCount(first.getId())).isZero();
+            assertThat(filmDbStorage.getPopularFilms(1))
+                    .extracting(Film::getId)
+                    .containsExactly(second.getId());
+        } finally {
+            // тест работает без транзакции, поэтому убирает за собой сам
+            jdbcTemplate.update("DELETE FROM film_likes WHERE user_id IN (?, ?)", alice.getId(), bob.getId());
+            jdbcTemplate.update("DELETE FROM films WHERE film_id IN (?, ?)", first.getId(), second.getId());
+            jdbcTemplate.update("DELETE FROM users WHERE user_id IN (?, ?)", alice.getId(), bob.getId());
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldKeepPopularityIndexInSyncWithLikesDuringRebuild() throws Exception {
+        List<Film> films = List.of(film("Concurrent 1"), film("Concurrent 2"), film("Concurrent 3"));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            users.add(user("concurrent-" + i));
+        }
+        int workers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int worker = 0; worker < workers; worker++) {
+                // у каждого потока свои пользователи, поэтому лайки не конфликтуют и исключений не бывает
+                List<User> own = users.subList(worker * 4, worker * 4 + 4);
+                futures.add(executor.submit(() -> {
+                    Set<String> liked = new HashSet<>();
+                    Random random = new Random();
+                    while (running.get()) {
+                        Film film = films.get(random.nextInt(films.size()));
+                        User user = own.get(random.nextInt(own.size()));
+                        if (liked.add(film.getId() + ":" + user.getId())) {
+                            filmDbStorage.addLike(film.getId(), user.getId());
+                        } else {
+                            liked.remove(film.getId() + ":" + user.getId());
+                            filmDbStorage.removeLike(film.getId(), user.getId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < 30; i++) {
+                filmDbStorage.rebuildPopularityIndex();
+            }
+            running.set(false);
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            for (Film film : films) {
+                assertThat(filmDbStorage.indexedLikes(film.getId()))
+                        .as("лайки фильма %d", film.getId())
+                        .isEqualTo(likesCount(film.getId()));
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+            List<Long> userIds = users.stream().map(User::getId).toList();
+            List<Long> filmIds = films.stream().map(Film::getId).toList();
+            userIds.forEach(id -> jdbcTemplate.update("DELETE FROM film_likes WHERE user_id = ?", id));
+            filmIds.forEach(id -> jdbcTemplate.update("DELETE FROM films WHERE film_id = ?", id));
+            userIds.forEach(id -> jdbcTemplate.update("DELETE FROM users WHERE user_id = ?", id));
+        }
+    }
+
+    private Long likesCount(Long filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = ?", Long.class, filmId);
+    }
+
+    @Test
+    void shouldGetFilmsPageAfterCursor() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        Film third = film("Film 3");
+
+        assertThat(filmDbStorage.getPage(0, 2, FilmView.FULL))
+                .extracting(Film::getId)
+                .containsExactly(first.getId(), second.getId());
+        assertThat(filmDbStorage.getPage(second.getId(), 2, FilmView.COMPACT))
+                .extracting(Film::getId)
+                .containsExactly(third.getId());
+    }
+
+    @Test
+    void shouldExportFilmsWithGenresAndLikes() {
+        Film first = film("Film 1");
+        Film second = new Film();
+        second.setName("Film 2");
+        second.setReleaseDate(LocalDate.of(2025, 12, 2));
+        second.setDuration(90);
+        second.setGenres(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")));
+        filmDbStorage.addFilm(second);
+        User alice = user("alice");
+        User bob = user("bob");
+        filmDbStorage.addLike(second.getId(), alice.getId());
+        filmDbStorage.addLike(second.getId(), bob.getId());
+
+        List<Film> exported = new ArrayList<>();
+        filmDbStorage.exportAll(exported::add);
+
+        assertThat(exported)
+                .extracting(Film::getId)
+                .containsExactly(first.getId(), second.getId());
+        assertThat(exported.get(0).getLikes()).isEmpty();
+        assertThat(exported.get(1).getGenres())
+                .extracting(Genre::getName)
+                .containsExactly("Комедия", "Драма");
+        assertThat(exported.get(1).getLikes()).containsExactlyInAnyOrder(alice.getId(), bob.getId());
+    }
+
+    @Test
+    void shouldReturnCompactPopularFilmsAndPagedLikes() {
+        Film film = film("Film");
+        User alice = user("alice");
+        User bob = user("bob");
+        User carol = user("carol");
+        filmDbStorage.addLike(film.getId(), alice.getId());
+        filmDbStorage.addLike(film.getId(), bob.getId());
+        filmDbStorage.addLike(film.getId(), carol.getId());
+
+        assertThat(filmDbStorage.getPopularFilms(1, FilmView.COMPACT))
+                .singleElement()
+                .satisfies(f -> {
+                    assertThat(f.getLikes()).isNull();
+                    assertThat(f.getLikesCount()).isEqualTo(3);
+                });
+
+        assertThat(filmDbStorage.getLikes(film.getId(), 0, 2))
+                .containsExactly(alice.getId(), bob.getId());
+        assertThat(filmDbStorage.getLikes(film.getId(), bob.getId(), 2))
+                .containsExactly(carol.getId());
+    }
+
+    @Test
+    void shouldLoadGenresWithMatchingNames() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2025, 12, 1));
+        film.setDuration(100);
+        film.setGenres(List.of(new Genre(2, "Драма"), new Genre(6, "Боевик"), new Genre(1, "Комедия")));
+        filmDbStorage.addFilm(film);
+
+        assertThat(filmDbStorage.getAll())
+                .singleElement()
+                .satisfies(f -> assertThat(f.getGenres())
+                        .extracting(Genre::getId, Genre::getName)
+                        .containsExactly(
+                                tuple(1, "Комедия"),
+                                tuple(2, "Драма"),
+                                tuple(6, "Боевик")));
+    }
+
+    @Test
+    void shouldGetFilmByIdWithGenresAndLikesInOneQuery() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2025, 12, 1));
+        film.setDuration(100);
+        film.setGenres(List.of(new Genre(4, "Триллер"), new Genre(1, "Комедия")));
+        filmDbStorage.addFilm(film);
+        User alice = user("alice");
+        filmDbStorage.addLike(film.getId(), alice.getId());
+
+        assertThat(filmDbStorage.exists(film.getId())).isTrue();
+        assertThat(filmDbStorage.exists(999L)).isFalse();
+        assertThat(filmDbStorage.getById(film.getId()))
+                .hasValueSatisfying(f -> {
+                    assertThat(f.getGenres())
+                            .extracting(Genre::getId, Genre::getName)
+                            .containsExactly(tuple(1, "Комедия"), tuple(4, "Триллер"));
+                    assertThat(f.getLikes()).containsExactly(alice.getId());
+                    assertThat(f.getLikesCount()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void shouldApplyLikeChangesIdempotently() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        User alice = user("alice");
+        User bob = user("bob");
+        filmDbStorage.addLike(first.getId(), alice.getId());
+        filmDbStorage.addLike(first.getId(), bob.getId());
+
+        List<LikeChange> applied = filmDbStorage.applyLikeChanges(List.of(
+                new LikeChange(first.getId(), alice.getId(), true),
+                new LikeChange(first.getId(), bob.getId(), false),
+                new LikeChange(second.getId(), alice.getId(), true),
+                new LikeChange(second.getId(), bob.getId(), false)));
+
+        assertThat(applied).containsExactlyInAnyOrder(
+                new LikeChange(first.getId(), bob.getId(), false),
+                new LikeChange(second.getId(), alice.getId(), true));
+        assertThat(likesCount(first.getId())).isEqualTo(1L);
+        assertThat(likesCount(second.getId())).isEqualTo(1L);
+        assertThat(filmDbStorage.getById(second.getId()))
+                .hasValueSatisfying(f -> assertThat(f.getLikes()).containsExactly(alice.getId()));
+    }
+
+    @Test
+    void shouldGroupLikedFilmsByUser() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        User alice = user("alice");
+        User bob = user("bob");
+        user("carol");
+        filmDbStorage.addLike(second.getId(), alice.getId());
+        filmDbStorage.addLike(first.getId(), alice.getId());
+        filmDbStorage.addLike(second.getId(), bob.getId());
+
+        assertThat(filmDbStorage.getLikedFilmsByUser())
+                .containsOnlyKeys(alice.getId(), bob.getId())
+                .containsEntry(alice.getId(), SortedLongSet.of(first.getId(), second.getId()))
+                .containsEntry(bob.getId(), SortedLongSet.of(second.getId()));
+    }
 }
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FriendshipDbStorage.class, UserDbStorage.class})
+class FriendshipDbStorageTests {
+
+    @Autowired
+    private FriendshipDbStorage friendshipDbStorage;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void resetGraph() {
+        // граф живёт дольше откатываемых транзакций теста
+        friendshipDbStorage.rebuildGraph();
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userDbStorage.addUser(user);
+    }
+
+    @Test
+    void shouldIntersectFriendLists() {
+        User first = user("first");
+        User second = user("second");
+        User common = user("common");
+        User other = user("other");
+
+        friendshipDbStorage.addFriend(first.getId(), common.getId());
+        friendshipDbStorage.addFriend(first.getId(), other.getId());
+        friendshipDbStorage.addFriend(second.getId(), common.getId());
+
+        assertThat(friendshipDbStorage.getCommonFriends(first.getId(), second.getId()))
+                .extracting(User::getLogin)
+                .containsExactly("common");
+        assertThat(friendshipDbStorage.getFriends(first.getId()))
+                .extracting(User::getLogin)
+                .containsExactly("common", "other");
+
+        friendshipDbStorage.removeFriend(first.getId(), common.getId());
+
+        assertThat(friendshipDbStorage.getCommonFriends(first.getId(), second.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldWarmGraphFromDatabase() {
+        User first = user("first");
+        User second = user("second");
+        jdbcTemplate.update("INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, 'CONFIRMED')",
+                first.getId(), second.getId());
+
+        assertThat(friendshipDbStorage.getFriends(first.getId())).isEmpty();
+
+        friendshipDbStorage.rebuildGraph();
+
+        assertThat(friendshipDbStorage.getFriends(first.getId()))
+                .extracting(User::getId)
+                .containsExactly(second.getId());
+    }
+
+    @Test
+    void shouldRankSuggestionsByMutualFriendsAndRefreshOnChanges() {
+        User me = user("me");
+        User first = user("first");
+        User second = user("second");
+        User popular = user("popular");
+        User rare = user("rare");
+
+        friendshipDbStorage.addFriend(me.getId(), first.getId());
+        friendshipDbStorage.addFriend(me.getId(), second.getId());
+        friendshipDbStorage.addFriend(first.getId(), popular.getId());
+        friendshipDbStorage.addFriend(second.getId(), popular.getId());
+        friendshipDbStorage.addFriend(second.getId(), rare.getId());
+        friendshipDbStorage.addFriend(second.getId(), me.getId());
+
+        assertThat(friendshipDbStorage.getFriendSuggestions(me.getId(), 10))
+                .extracting(User::getLogin)
+                .containsExactly("popular", "rare");
+        assertThat(friendshipDbStorage.getFriendSuggestions(me.getId(), 1))
+                .extracting(User::getLogin)
+                .containsExactly("popular");
+
+        friendshipDbStorage.addFriend(me.getId(), popular.getId());
+        friendshipDbStorage.addFriend(first.getId(), rare.getId());
+
+        assertThat(friendshipDbStorage.getFriendSuggestions(me.getId(), 10))
+                .extracting(User::getLogin)
+                .containsExactly("rare");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldKeepGraphInSyncWithConcurrentAddAndRemove() throws Exception {
+        User first = user("racing-first");
+        User second = user("racing-second");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int worker = 0; worker < 4; worker++) {
+                boolean adding = worker % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        try {
+                            if (adding) {
+                                friendshipDbStorage.addFriend(first.getId(), second.getId());
+                            } else {
+                                friendshipDbStorage.removeFriend(first.getId(), second.getId());
+                            }
+                        } catch (DataAccessException e) {
+                            // повторное добавление упирается в первичный ключ
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM friendships WHERE user_id = ? AND friend_id = ?",
+                    Integer.class, first.getId(), second.getId());
+            assertThat(friendshipDbStorage.getFriends(first.getId())).hasSize(rows);
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ?", first.getId());
+            jdbcTemplate.update("DELETE FROM users WHERE user_id IN (?, ?)", first.getId(), second.getId());
+        }
+    }
+}
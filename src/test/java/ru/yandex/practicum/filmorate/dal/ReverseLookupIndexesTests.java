@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнивает по EXPLAIN ANALYZE число просмотренных строк для обратных выборок
+ * с индексами из V3 и при принудительном полном сканировании таблицы.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+class ReverseLookupIndexesTests {
+    // явные id в стороне от последовательностей, которые занимают другие тесты
+    private static final long BASE = 1_000_000;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (user_id, email, login, birthday) "
+                + "SELECT ? + x, 'u' || x || '@mail.ru', 'u' || x, DATE '1990-01-01' FROM SYSTEM_RANGE(1, 500)", BASE);
+        jdbcTemplate.update("INSERT INTO films (film_id, name, release_date, duration) "
+                + "SELECT ? + x, 'f' || x, DATE '2000-01-01', 100 FROM SYSTEM_RANGE(1, 500)", BASE);
+        // каждый пользователь лайкает и дружит с 20 соседями, у каждого фильма один жанр
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) "
+                + "SELECT ? + MOD(u.x + s.x, 500) + 1, ? + u.x FROM SYSTEM_RANGE(1, 500) u, SYSTEM_RANGE(1, 20) s",
+                BASE, BASE);
+        jdbcTemplate.update("INSERT INTO friendships (user_id, friend_id, status) "
+                + "SELECT ? + u.x, ? + MOD(u.x + s.x, 500) + 1, 'CONFIRMED' "
+                + "FROM SYSTEM_RANGE(1, 500) u, SYSTEM_RANGE(1, 20) s", BASE, BASE);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) "
+                + "SELECT ? + x, MOD(x, 6) + 1 FROM SYSTEM_RANGE(1, 500)", BASE);
+    }
+
+    @Test
+    void shouldSeekLikesByUser() {
+        assertSeek("film_likes", "idx_film_likes_user",
+                "SELECT film_id FROM %s WHERE user_id = " + (BASE + 250), 20, 10_000);
+    }
+
+    @Test
+    void shouldSeekFriendshipsByFriend() {
+        assertSeek("friendships", "idx_friendships_friend",
+                "SELECT user_id FROM %s WHERE friend_id = " + (BASE + 250), 20, 10_000);
+    }
+
+    @Test
+    void shouldSeekFilmsByGenre() {
+        assertSeek("film_genres", "idx_film_genres_genre",
+                "SELECT film_id FROM %s WHERE genre_id = 2", 84, 500);
+    }
+
+    private void assertSeek(String table, String index, String query, int matching, int total) {
+        String indexed = explain(query.formatted(table));
+        String scanned = explain(query.formatted(table + " USE INDEX ()"));
+
+        assertThat(indexed).containsIgnoringCase(index);
+        assertThat(scanCount(indexed)).isLessThanOrEqualTo(matching + 1);
+        assertThat(scanCount(scanned)).isGreaterThanOrEqualTo(total);
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN ANALYZE " + sql, String.class));
+    }
+
+    private static long scanCount(String plan) {
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        assertThat(matcher.find()).as("scanCount в плане: %s", plan).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+}
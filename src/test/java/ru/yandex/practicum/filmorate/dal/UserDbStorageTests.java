@@ -6,13 +6,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.DuplicateEntityException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -129,4 +132,43 @@ class UserDbStorageTests {
                 .extracting(User::getLogin)
                 .containsExactlyInAnyOrder("first", "second");
     }
+
+    @Test
+    void shouldGetUsersPageAfterCursor() {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setName("User " + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userDbStorage.addUser(user);
+        }
+
+        List<User> firstPage = userDbStorage.getPage(0, 2);
+        assertThat(firstPage)
+                .extracting(User::getLogin)
+                .containsExactly("user1", "user2");
+
+        assertThat(userDbStorage.getPage(firstPage.get(1).getId(), 2))
+                .extracting(User::getLogin)
+                .containsExactly("user3");
+    }
+
+    @Test
+    void shouldRejectDuplicateLogin() {
+        User first = new User();
+        first.setEmail("first@mail.ru");
+        first.setLogin("same");
+        first.setBirthday(LocalDate.of(1990, 1, 1));
+        userDbStorage.addUser(first);
+
+        User second = new User();
+        second.setEmail("second@mail.ru");
+        second.setLogin("same");
+        second.setBirthday(LocalDate.of(1990, 1, 1));
+
+        assertThatThrownBy(() -> userDbStorage.addUser(second))
+                .isInstanceOf(DuplicateEntityException.class);
+        assertThat(userDbStorage.findByLogin("same")).contains(first);
+    }
 }
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExceptionControllerTests {
+
+    private SimpleMeterRegistry registry;
+    private ExceptionController controller;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        controller = new ExceptionController(registry);
+    }
+
+    private double errors(String exception, String status) {
+        return registry.get("filmorate.http.errors")
+                .tags("exception", exception, "status", status)
+                .counter().count();
+    }
+
+    @Test
+    void shouldCountErrorsByExceptionAndStatus() {
+        controller.handleEntityNotFoundException(new EntityNotFoundException("Фильм", 1L));
+        controller.handleEntityNotFoundException(new EntityNotFoundException("Фильм", 2L));
+        controller.handleValidationException(new ValidationException("Неверные данные"));
+        ErrorResponse response = controller.handleAllOtherExceptions(new IllegalStateException("boom"));
+
+        assertThat(errors("EntityNotFoundException", "404")).isEqualTo(2);
+        assertThat(errors("ValidationException", "400")).isEqualTo(1);
+        assertThat(errors("IllegalStateException", "500")).isEqualTo(1);
+        assertThat(response.getError()).isEqualTo("Внутренняя ошибка сервера");
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AsyncHttpLogWriterTests {
+
+    @Test
+    void shouldDropWritesWhenQueueIsFullInsteadOfBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(new BlockingWriter(release, written), 2);
+        Correlation correlation = mock(Correlation.class);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            writer.write(correlation, "line " + i);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        writer.stop();
+
+        assertThat(elapsedMs).isLessThan(1000);
+        // одна запись в работе, две в очереди, остальные отброшены
+        assertThat(written).hasSize(3);
+        assertThat(writer.getDropped()).isEqualTo(7);
+    }
+
+    private record BlockingWriter(CountDownLatch release, List<String> written) implements HttpLogWriter {
+
+        @Override
+        public void write(Precorrelation precorrelation, String request) {
+            write(request);
+        }
+
+        @Override
+        public void write(Correlation correlation, String response) {
+            write(response);
+        }
+
+        private void write(String line) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(line);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.servlet.ServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class SampledHttpLogStrategyTests {
+
+    private final Sink sink = mock(Sink.class);
+    // как RemoteRequest из logbook-servlet: запрос Logbook и одновременно запрос сервлета
+    private final HttpRequest request = mock(HttpRequest.class, withSettings().extraInterfaces(ServletRequest.class));
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final HttpRequest requestWithoutBody = mock(HttpRequest.class);
+    private final HttpResponse response = mock(HttpResponse.class);
+    private final HttpResponse responseWithoutBody = mock(HttpResponse.class);
+    private final Precorrelation precorrelation = mock(Precorrelation.class);
+    private final Correlation correlation = mock(Correlation.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(request.withBody()).thenReturn(request);
+        when(request.withoutBody()).thenReturn(requestWithoutBody);
+        when(response.withBody()).thenReturn(response);
+        when(response.withoutBody()).thenReturn(responseWithoutBody);
+        ServletRequest servletRequest = (ServletRequest) request;
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(servletRequest).setAttribute(anyString(), any());
+        when(servletRequest.getAttribute(anyString()))
+                .thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+    }
+
+    // как DefaultLogbook: атрибуты извлекаются из обработанного запроса и видны дальше через его обёртки
+    private void processRequest(SampledHttpLogStrategy strategy) throws Exception {
+        strategy.process(request);
+        HttpAttributes extracted = strategy.extract(request);
+        when(request.getAttributes()).thenReturn(extracted);
+    }
+
+    // порядок вызовов как в LogbookFilter
+    private void exchange(SampledHttpLogStrategy strategy, int status) throws Exception {
+        when(response.getStatus()).thenReturn(status);
+        processRequest(strategy);
+        strategy.write(precorrelation, request, sink);
+        strategy.process(request, response);
+        strategy.write(correlation, request, response, sink);
+    }
+
+    // при асинхронной обработке ответ обрабатывается и пишется в другом потоке
+    private void asyncExchange(SampledHttpLogStrategy strategy, int status) throws Exception {
+        when(response.getStatus()).thenReturn(status);
+        processRequest(strategy);
+        strategy.write(precorrelation, request, sink);
+        CompletableFuture.runAsync(() -> {
+            try {
+                strategy.process(request, response);
+                strategy.write(correlation, request, response, sink);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldNotBufferBodiesOutsideSample() throws Exception {
+        exchange(new SampledHttpLogStrategy(0, 400), 200);
+
+        verify(request).withoutBody();
+        verify(request, never()).withBody();
+        verify(response).withoutBody();
+        verify(response, never()).withBody();
+        verifyNoInteractions(sink);
+    }
+
+    @Test
+    void shouldAlwaysLogErrors() throws Exception {
+        exchange(new SampledHttpLogStrategy(0, 400), 404);
+
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    @Test
+    void shouldLogSampledSuccessWithoutBodies() throws Exception {
+        exchange(new SampledHttpLogStrategy(1, 400), 200);
+
+        verify(request).withBody();
+        verify(response).withBody();
+        verify(sink).writeBoth(correlation, requestWithoutBody, responseWithoutBody);
+        verify(sink, never()).write(correlation, request, response);
+    }
+
+    @Test
+    void shouldLogSampledErrorWithBodies() throws Exception {
+        exchange(new SampledHttpLogStrategy(1, 400), 500);
+
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    @Test
+    void shouldKeepSampleAcrossThreadsOfAsyncRequest() throws Exception {
+        asyncExchange(new SampledHttpLogStrategy(1, 400), 500);
+
+        verify(response).withBody();
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    @Test
+    void shouldNotSampleRequestsOutsideServlet() throws Exception {
+        HttpRequest plain = mock(HttpRequest.class);
+        when(plain.withoutBody()).thenReturn(plain);
+        when(plain.getAttributes()).thenReturn(HttpAttributes.EMPTY);
+        when(response.getStatus()).thenReturn(200);
+        SampledHttpLogStrategy strategy = new SampledHttpLogStrategy(1, 400);
+
+        strategy.process(plain);
+        assertThat(strategy.extract(plain)).isEmpty();
+        strategy.process(plain, response);
+        strategy.write(correlation, plain, response, sink);
+
+        verify(plain, never()).withBody();
+        verifyNoInteractions(sink);
+    }
+
+    @Test
+    void shouldRejectInvalidRate() {
+        assertThatThrownBy(() -> new SampledHttpLogStrategy(1.5, 400))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
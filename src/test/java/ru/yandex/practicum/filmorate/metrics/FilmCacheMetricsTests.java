@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmCacheMetricsTests {
+
+    private SimpleMeterRegistry registry;
+    private CachingFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        storage = new CachingFilmStorage(new InMemoryFilmStorage(), 1, Duration.ofMinutes(5));
+        new FilmCacheMetrics(storage).bindTo(registry);
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return storage.addFilm(film);
+    }
+
+    @Test
+    void shouldReportCacheStatsAtScrapeTime() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+
+        storage.getById(first.getId());
+        storage.getById(first.getId());
+        storage.getById(second.getId());
+
+        assertThat(registry.get("filmorate.cache.films.requests").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("filmorate.cache.films.requests").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("filmorate.cache.films.evictions").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("filmorate.cache.films.size").gauge().value()).isEqualTo(1);
+    }
+}
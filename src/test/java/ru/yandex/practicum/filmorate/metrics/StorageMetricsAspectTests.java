@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesMeterFilter;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StorageMetricsAspectTests {
+
+    private SimpleMeterRegistry registry;
+    private FilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new InMemoryFilmStorage());
+        factory.addAspect(new StorageMetricsAspect(registry));
+        storage = factory.getProxy();
+    }
+
+    @Test
+    void shouldTimeCallsAndCountReturnedRows() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        storage.addFilm(film);
+
+        storage.getAll();
+        storage.getAll();
+
+        assertThat(registry.get(StorageMetricsAspect.STORAGE_TIMER)
+                .tags("class", "InMemoryFilmStorage", "method", "getAll", "outcome", "success")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get(StorageMetricsAspect.STORAGE_ROWS)
+                .tags("method", "getAll")
+                .summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTagFailedCallsWithExceptionType() {
+        assertThatThrownBy(() -> storage.addLike(42L, 1L)).isInstanceOf(EntityNotFoundException.class);
+
+        assertThat(registry.get(StorageMetricsAspect.STORAGE_TIMER)
+                .tags("method", "addLike", "outcome", "error", "exception", "EntityNotFoundException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldApplySloBucketsToTimersOnly() throws Exception {
+        Properties application = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/application.properties")) {
+            application.load(in);
+        }
+        MetricsProperties properties = new Binder(new MapConfigurationPropertySource(application))
+                .bind("management.metrics", MetricsProperties.class)
+                .get();
+        registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new PropertiesMeterFilter(properties));
+        AspectJProxyFactory factory = new AspectJProxyFactory(new InMemoryFilmStorage());
+        factory.addAspect(new StorageMetricsAspect(registry));
+        storage = factory.getProxy();
+
+        storage.getAll();
+
+        assertThat(registry.get(StorageMetricsAspect.STORAGE_TIMER).timer().takeSnapshot().histogramCounts())
+                .hasSize(5);
+        assertThat(registry.get(StorageMetricsAspect.STORAGE_ROWS).summary().takeSnapshot().histogramCounts())
+                .isEmpty();
+    }
+}
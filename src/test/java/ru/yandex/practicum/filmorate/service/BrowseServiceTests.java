@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.BrowseFilter;
+import ru.yandex.practicum.filmorate.model.BrowseResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class BrowseServiceTests {
+    private static final BrowseFilter ALL = new BrowseFilter(null, null, null, null);
+
+    private InMemoryFilmStorage filmStorage;
+    private BrowseService service;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = spy(new InMemoryFilmStorage());
+        service = new BrowseService(filmStorage);
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return filmStorage.addFilm(film);
+    }
+
+    private List<Long> ids(BrowseResult result) {
+        return result.films().stream().map(Film::getId).toList();
+    }
+
+    @Test
+    void shouldPageUntilIndexIsExhausted() {
+        Film first = film("First");
+        Film second = film("Second");
+        service.rebuild();
+
+        BrowseResult page = service.browse(ALL, 0, 2, FilmView.COMPACT);
+        assertThat(ids(page)).containsExactly(first.getId(), second.getId());
+        assertThat(page.nextAfter()).isEqualTo(second.getId());
+
+        BrowseResult last = service.browse(ALL, page.nextAfter(), 2, FilmView.COMPACT);
+        assertThat(ids(last)).isEmpty();
+        assertThat(last.nextAfter()).isNull();
+    }
+
+    @Test
+    void shouldKeepCursorWhenIndexedFilmIsMissingFromStorage() {
+        Film first = film("First");
+        Film missing = film("Missing");
+        Film third = film("Third");
+        service.rebuild();
+        // фильм есть в индексе, но хранилище его уже не отдаёт
+        doAnswer(invocation -> ((List<?>) invocation.callRealMethod()).stream()
+                .filter(film -> !((Film) film).getId().equals(missing.getId()))
+                .toList())
+                .when(filmStorage).getByIds(any(), any());
+
+        BrowseResult page = service.browse(ALL, 0, 2, FilmView.COMPACT);
+        assertThat(ids(page)).containsExactly(first.getId());
+        assertThat(page.nextAfter()).isEqualTo(missing.getId());
+
+        assertThat(ids(service.browse(ALL, page.nextAfter(), 2, FilmView.COMPACT))).containsExactly(third.getId());
+    }
+}
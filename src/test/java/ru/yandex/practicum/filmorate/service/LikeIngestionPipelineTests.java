@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class LikeIngestionPipelineTests {
+
+    private InMemoryFilmStorage filmStorage;
+    private LikeIngestionPipeline pipeline;
+    private Film film;
+    private final List<LikesChangedEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = spy(new InMemoryFilmStorage());
+        pipeline = new LikeIngestionPipeline(filmStorage, event -> events.add((LikesChangedEvent) event),
+                true, 2, 100, 1000, false);
+
+        film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film = filmStorage.addFilm(film);
+    }
+
+    private Set<Long> likes() {
+        return filmStorage.getById(film.getId()).orElseThrow().getLikes();
+    }
+
+    @Test
+    void shouldCoalesceChangesPerFilmAndUser() {
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        pipeline.submit(new LikeChange(film.getId(), 1, false));
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        pipeline.submit(new LikeChange(film.getId(), 2, true));
+
+        assertThat(pipeline.pendingDeltas()).isEqualTo(Map.of(film.getId(), 2L));
+        assertThat(likes()).isEmpty();
+
+        assertThat(pipeline.flush()).isEqualTo(2);
+        assertThat(likes()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(pipeline.pendingDeltas()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectNewChangesWhenQueueIsFull() {
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        pipeline.submit(new LikeChange(film.getId(), 2, true));
+
+        assertThatThrownBy(() -> pipeline.submit(new LikeChange(film.getId(), 3, true)))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        pipeline.submit(new LikeChange(film.getId(), 2, false));
+        assertThat(pipeline.pendingDeltas()).isEqualTo(Map.of(film.getId(), 1L));
+        assertThat(pipeline.flush()).isEqualTo(1);
+        assertThat(likes()).containsExactly(1L);
+    }
+
+    @Test
+    void shouldCountDeltasAgainstStoredLikes() {
+        filmStorage.addLike(film.getId(), 1L);
+
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        assertThat(pipeline.pendingDeltas()).isEmpty();
+
+        pipeline.submit(new LikeChange(film.getId(), 1, false));
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        assertThat(pipeline.pendingDeltas()).isEmpty();
+
+        pipeline.submit(new LikeChange(film.getId(), 2, true));
+        pipeline.submit(new LikeChange(film.getId(), 2, false));
+        assertThat(pipeline.pendingDeltas()).isEmpty();
+
+        pipeline.submit(new LikeChange(film.getId(), 1, false));
+        assertThat(pipeline.pendingDeltas()).isEqualTo(Map.of(film.getId(), -1L));
+        assertThat(pipeline.flush()).isEqualTo(1);
+        assertThat(likes()).isEmpty();
+    }
+
+    @Test
+    void shouldPublishOnlyAppliedChanges() {
+        filmStorage.addLike(film.getId(), 1L);
+
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        pipeline.submit(new LikeChange(film.getId(), 2, true));
+        assertThat(pipeline.flush()).isEqualTo(1);
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).changes()).containsExactly(new LikeChange(film.getId(), 2, true));
+
+        pipeline.submit(new LikeChange(film.getId(), 2, true));
+        assertThat(pipeline.flush()).isZero();
+        assertThat(events).hasSize(1);
+    }
+
+    @Test
+    void shouldRereadStoredLikeWrittenByConcurrentFlush() {
+        pipeline.submit(new LikeChange(film.getId(), 1, true));
+        // пачка записывает пару между чтением хранилища и постановкой второго изменения в очередь
+        AtomicBoolean flushed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Object stored = invocation.callRealMethod();
+            if (flushed.compareAndSet(false, true)) {
+                pipeline.flush();
+            }
+            return stored;
+        }).when(filmStorage).hasLike(anyLong(), anyLong());
+
+        pipeline.submit(new LikeChange(film.getId(), 1, false));
+
+        assertThat(pipeline.pendingDeltas()).isEqualTo(Map.of(film.getId(), -1L));
+        assertThat(pipeline.flush()).isEqualTo(1);
+        assertThat(likes()).isEmpty();
+    }
+}
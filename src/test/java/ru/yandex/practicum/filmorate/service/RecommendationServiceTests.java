@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class RecommendationServiceTests {
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private RecommendationService service;
+
+    private Film first;
+    private Film second;
+    private Film third;
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = spy(new InMemoryFilmStorage());
+        userStorage = new InMemoryUserStorage();
+        service = new RecommendationService(filmStorage, userStorage, 10, 100);
+
+        first = film("First");
+        second = film("Second");
+        third = film("Third");
+        alice = user("alice");
+        bob = user("bob");
+        carol = user("carol");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return filmStorage.addFilm(film);
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return userStorage.addUser(user);
+    }
+
+    private List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    @Test
+    void shouldRecommendCoLikedFilmsAfterRebuild() {
+        filmStorage.addLike(first.getId(), alice.getId());
+        filmStorage.addLike(second.getId(), alice.getId());
+        filmStorage.addLike(first.getId(), bob.getId());
+        filmStorage.addLike(second.getId(), bob.getId());
+        filmStorage.addLike(first.getId(), carol.getId());
+
+        service.rebuild();
+
+        assertThat(ids(service.getSimilarFilms(first.getId(), 10, FilmView.COMPACT)))
+                .containsExactly(second.getId());
+        assertThat(ids(service.getRecommendations(carol.getId(), 10, FilmView.COMPACT)))
+                .containsExactly(second.getId());
+    }
+
+    @Test
+    void shouldApplyLikeEventsInBackground() {
+        service.rebuild();
+
+        service.onLikesChanged(new LikesChangedEvent(List.of(
+                new LikeChange(first.getId(), alice.getId(), true),
+                new LikeChange(third.getId(), alice.getId(), true),
+                new LikeChange(first.getId(), bob.getId(), true))));
+        service.awaitUpdates();
+
+        assertThat(ids(service.getSimilarFilms(first.getId(), 10, FilmView.COMPACT)))
+                .containsExactly(third.getId());
+        assertThat(ids(service.getRecommendations(bob.getId(), 10, FilmView.COMPACT)))
+                .containsExactly(third.getId());
+    }
+
+    @Test
+    void shouldReplayChangesArrivingDuringRebuild() {
+        filmStorage.addLike(first.getId(), alice.getId());
+        filmStorage.addLike(second.getId(), alice.getId());
+        // событие приходит, пока строится индекс, и в снимок хранилища не попадает
+        doAnswer(invocation -> {
+            Object snapshot = invocation.callRealMethod();
+            service.onLikesChanged(new LikesChangedEvent(List.of(
+                    new LikeChange(third.getId(), alice.getId(), true))));
+            return snapshot;
+        }).when(filmStorage).getLikedFilmsByUser();
+
+        service.rebuild();
+        service.awaitUpdates();
+
+        assertThat(ids(service.getSimilarFilms(third.getId(), 10, FilmView.COMPACT)))
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+    }
+
+    @Test
+    void shouldRejectUnknownFilmAndUser() {
+        assertThatThrownBy(() -> service.getSimilarFilms(999L, 10, FilmView.COMPACT))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> service.getRecommendations(999L, 10, FilmView.COMPACT))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class SearchServiceTests {
+
+    private InMemoryFilmStorage filmStorage;
+    private SearchService service;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = spy(new InMemoryFilmStorage());
+        service = new SearchService(filmStorage, 1.0);
+    }
+
+    private Film film(String name, String description) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return filmStorage.addFilm(film);
+    }
+
+    private void like(Film film, int likes) {
+        for (long userId = 1; userId <= likes; userId++) {
+            filmStorage.addLike(film.getId(), userId);
+        }
+    }
+
+    private List<Long> search(String query, int limit) {
+        return service.search(query, limit, FilmView.COMPACT).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    void shouldRankEqualTextMatchesByLikes() {
+        Film first = film("Space odyssey", null);
+        Film second = film("Space odyssey", null);
+        like(second, 3);
+        service.rebuild();
+
+        assertThat(search("space", 10)).containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    void shouldBlendLikesOnlyWithinCandidateWindow() {
+        // чем длиннее описание, тем ниже BM25: по тексту фильмы идут в порядке добавления
+        Film best = film("Space", "alpha");
+        Film second = film("Space", "alpha beta");
+        Film third = film("Space", "alpha beta gamma");
+        Film outside = film("Space", "alpha beta gamma delta");
+        like(third, 10);
+        like(outside, 100);
+        service.rebuild();
+
+        assertThat(search("space", 4)).containsExactly(outside.getId(), third.getId(), best.getId(), second.getId());
+        // для одного результата смотрятся только CANDIDATE_FACTOR лучших по тексту
+        assertThat(search("space", 1)).containsExactly(third.getId());
+    }
+
+    @Test
+    void shouldReindexFilmsSavedDuringRebuild() {
+        Film film = film("Solaris", "Planet ocean");
+        doAnswer(invocation -> {
+            Object snapshot = invocation.callRealMethod();
+            Film update = new Film();
+            update.setId(film.getId());
+            update.setName("Stalker");
+            service.onFilmSaved(new FilmSavedEvent(filmStorage.updateFilm(update)));
+            return snapshot;
+        }).when(filmStorage).getAll(any());
+
+        service.rebuild();
+
+        assertThat(search("stalker", 10)).containsExactly(film.getId());
+        assertThat(search("solaris", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepDescriptionSearchableAfterPartialUpdate() {
+        Film film = film("Solaris", "Planet ocean");
+        service.rebuild();
+
+        Film update = new Film();
+        update.setId(film.getId());
+        update.setName("Solaris remake");
+        service.onFilmSaved(new FilmSavedEvent(filmStorage.updateFilm(update)));
+
+        assertThat(search("ocean", 10)).containsExactly(film.getId());
+        assertThat(search("remake", 10)).containsExactly(film.getId());
+    }
+}
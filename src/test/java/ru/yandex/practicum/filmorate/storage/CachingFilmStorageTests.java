@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CachingFilmStorageTests {
+
+    private InMemoryFilmStorage delegate;
+    private CachingFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        delegate = spy(new InMemoryFilmStorage());
+        storage = new CachingFilmStorage(delegate, 2, Duration.ofMinutes(5));
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return storage.addFilm(film);
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        Film film = film("Film");
+
+        storage.getById(film.getId());
+        storage.getById(film.getId());
+
+        verify(delegate, times(1)).getById(film.getId());
+        assertThat(storage.getStats())
+                .isEqualTo(new CachingFilmStorage.Stats(1, 1, 0, 1));
+    }
+
+    @Test
+    void shouldInvalidateOnLikeAndUpdate() {
+        Film film = film("Film");
+        storage.getById(film.getId());
+
+        storage.addLike(film.getId(), 1L);
+        storage.getById(film.getId());
+        storage.updateFilm(film);
+        storage.getById(film.getId());
+
+        verify(delegate, times(3)).getById(film.getId());
+    }
+
+    @Test
+    void shouldCacheFilmWhenAnotherFilmChangesDuringLoad() {
+        Film film = film("Film");
+        Film other = film("Other");
+        doAnswer(invocation -> {
+            storage.addLike(other.getId(), 1L);
+            return invocation.callRealMethod();
+        }).doCallRealMethod().when(delegate).getById(film.getId());
+
+        storage.getById(film.getId());
+        storage.getById(film.getId());
+
+        verify(delegate, times(1)).getById(film.getId());
+    }
+
+    @Test
+    void shouldNotCacheFilmChangedDuringLoad() {
+        Film film = film("Film");
+        doAnswer(invocation -> {
+            storage.addLike(film.getId(), 1L);
+            return invocation.callRealMethod();
+        }).doCallRealMethod().when(delegate).getById(film.getId());
+
+        storage.getById(film.getId());
+        storage.getById(film.getId());
+
+        verify(delegate, times(2)).getById(film.getId());
+        assertThat(storage.getStats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnCopiesOfCachedFilm() {
+        Film film = film("Film");
+        storage.getById(film.getId()).orElseThrow().setName("Changed");
+
+        storage.getById(film.getId()).orElseThrow().setName("Changed again");
+
+        assertThat(storage.getById(film.getId())).get()
+                .extracting(Film::getName).isEqualTo("Film");
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedFilm() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        Film third = film("Film 3");
+
+        storage.getById(first.getId());
+        storage.getById(second.getId());
+        storage.getById(first.getId());
+        storage.getById(third.getId());
+        storage.getById(second.getId());
+
+        verify(delegate, times(2)).getById(second.getId());
+        assertThat(storage.getStats().evictions()).isEqualTo(2);
+        assertThat(storage.getStats().size()).isEqualTo(2);
+    }
+}
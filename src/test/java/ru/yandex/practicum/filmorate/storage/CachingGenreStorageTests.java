@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.GenreDbStorage;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingGenreStorageTests {
+
+    private GenreDbStorage delegate;
+    private CachingGenreStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(GenreDbStorage.class);
+        when(delegate.getAll()).thenReturn(List.of(new Genre(2, "Драма"), new Genre(1, "Комедия")));
+        storage = new CachingGenreStorage(delegate);
+        storage.load();
+    }
+
+    @Test
+    void shouldServeLookupsFromMemory() {
+        assertThat(storage.getById(2)).map(Genre::getName).hasValue("Драма");
+        assertThat(storage.getById(1)).map(Genre::getName).hasValue("Комедия");
+        assertThat(storage.getAll()).extracting(Genre::getId).containsExactly(1, 2);
+
+        verify(delegate, times(1)).getAll();
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownOrNullId() {
+        assertThat(storage.getById(99)).isEmpty();
+        assertThat(storage.getById(null)).isEmpty();
+    }
+
+    @Test
+    void shouldReloadOnInvalidate() {
+        when(delegate.getAll()).thenReturn(List.of(new Genre(1, "Комедия"), new Genre(3, "Мультфильм")));
+
+        storage.invalidate();
+
+        assertThat(storage.getById(2)).isEmpty();
+        assertThat(storage.getById(3)).map(Genre::getName).hasValue("Мультфильм");
+        verify(delegate, times(2)).getAll();
+    }
+}
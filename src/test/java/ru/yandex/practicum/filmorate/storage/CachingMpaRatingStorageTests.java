@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingMpaRatingStorageTests {
+
+    private MpaRatingDbStorage delegate;
+    private CachingMpaRatingStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(MpaRatingDbStorage.class);
+        when(delegate.getAll()).thenReturn(List.of(new MpaRating(3L, "PG-13"), new MpaRating(1L, "G")));
+        storage = new CachingMpaRatingStorage(delegate);
+        storage.load();
+    }
+
+    @Test
+    void shouldServeLookupsFromMemory() {
+        assertThat(storage.getById(3L)).map(MpaRating::getName).hasValue("PG-13");
+        assertThat(storage.getAll()).extracting(MpaRating::getId).containsExactly(1L, 3L);
+
+        verify(delegate, times(1)).getAll();
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownOrNullId() {
+        assertThat(storage.getById(2L)).isEmpty();
+        assertThat(storage.getById(100L)).isEmpty();
+        assertThat(storage.getById(null)).isEmpty();
+    }
+
+    @Test
+    void shouldReloadOnInvalidate() {
+        when(delegate.getAll()).thenReturn(List.of(new MpaRating(1L, "G"), new MpaRating(2L, "PG")));
+
+        storage.invalidate();
+
+        assertThat(storage.getById(3L)).isEmpty();
+        assertThat(storage.getById(2L)).map(MpaRating::getName).hasValue("PG");
+        verify(delegate, times(2)).getAll();
+    }
+}
@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryFilmStorageTests {
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage();
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return storage.addFilm(film);
+    }
+
+    @Test
+    void shouldAssignUniqueIdsAndKeepLikesConsistentUnderConcurrency() throws Exception {
+        Film target = film("Target");
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 500;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(film("Film").getId());
+                        storage.addLike(target.getId(), base + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(ids).hasSize(threads * perThread);
+        Film stored = storage.getById(target.getId()).orElseThrow();
+        assertThat(stored.getLikes()).hasSize(threads * perThread);
+        assertThat(stored.getLikesCount()).isEqualTo(threads * perThread);
+        assertThat(storage.getPopularFilms(1, FilmView.COMPACT).getFirst().getId()).isEqualTo(target.getId());
+    }
+
+    @Test
+    void shouldReturnCopiesWithLikesSnapshot() {
+        Film film = film("Film");
+        storage.addLike(film.getId(), 1L);
+
+        Film read = storage.getById(film.getId()).orElseThrow();
+        read.setName("Changed");
+        storage.addLike(film.getId(), 2L);
+
+        assertThat(read.getLikes()).containsExactly(1L);
+        assertThat(read.getLikesCount()).isEqualTo(1);
+        Film reread = storage.getAll(FilmView.FULL).iterator().next();
+        assertThat(reread.getName()).isEqualTo("Film");
+        assertThat(reread.getLikes()).containsExactly(1L, 2L);
+        assertThat(reread.getLikesCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldOrderPopularFilmsByLikesThenId() {
+        Film first = film("First");
+        Film second = film("Second");
+        Film third = film("Third");
+        storage.addLike(third.getId(), 1L);
+        storage.addLike(third.getId(), 2L);
+        storage.addLike(second.getId(), 1L);
+        storage.addLike(first.getId(), 1L);
+        storage.removeLike(first.getId(), 1L);
+
+        assertThat(storage.getPopularFilms(3).stream().map(Film::getId).collect(Collectors.toList()))
+                .containsExactly(third.getId(), second.getId(), first.getId());
+    }
+
+    @Test
+    void shouldPageFilmsInIdOrder() {
+        Film first = film("First");
+        Film second = film("Second");
+        Film third = film("Third");
+
+        assertThat(storage.getPage(first.getId(), 10, FilmView.FULL))
+                .extracting(Film::getId)
+                .containsExactly(second.getId(), third.getId());
+        assertThat(storage.getPage(0, 1, FilmView.FULL))
+                .extracting(Film::getId)
+                .containsExactly(first.getId());
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreAndMpaAfterUpdate() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setGenres(List.of(new Genre(1, "Комедия")));
+        film.setRating(new MpaRating(1L, "G"));
+        Film added = storage.addFilm(film);
+
+        Film update = added.copy();
+        update.setGenres(List.of(new Genre(2, "Драма")));
+        update.setRating(new MpaRating(2L, "PG"));
+        storage.updateFilm(update);
+
+        assertThat(storage.getPopularFilms(10, new PopularFilter(1, null, null), FilmView.FULL)).isEmpty();
+        assertThat(storage.getPopularFilms(10, new PopularFilter(null, 1L, null), FilmView.FULL)).isEmpty();
+        assertThat(storage.getPopularFilms(10, new PopularFilter(2, 2L, null), FilmView.FULL))
+                .extracting(Film::getId)
+                .containsExactly(added.getId());
+        assertThat(storage.getById(added.getId())).get()
+                .satisfies(stored -> {
+                    assertThat(stored.getGenres()).extracting(Genre::getId).containsExactly(2);
+                    assertThat(stored.getRating().getId()).isEqualTo(2L);
+                });
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByYearAfterUpdate() {
+        Film first = film("Film 1");
+        Film second = film("Film 2");
+        storage.addLike(second.getId(), 1L);
+
+        Film update = new Film();
+        update.setId(first.getId());
+        update.setReleaseDate(LocalDate.of(2010, 1, 1));
+        storage.updateFilm(update);
+
+        assertThat(storage.getPopularFilms(10, new PopularFilter(null, null, 2000), FilmView.FULL))
+                .extracting(Film::getId)
+                .containsExactly(second.getId());
+        assertThat(storage.getPopularFilms(10, new PopularFilter(null, null, 2010), FilmView.FULL))
+                .extracting(Film::getId)
+                .containsExactly(first.getId());
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.DuplicateEntityException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryUserStorageTests {
+
+    private InMemoryUserStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryUserStorage();
+    }
+
+    private User user(String email, String login) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    @Test
+    void shouldRejectDuplicateEmailOrLogin() {
+        storage.addUser(user("a@mail.ru", "a"));
+
+        assertThatThrownBy(() -> storage.addUser(user("a@mail.ru", "b")))
+                .isInstanceOf(DuplicateEntityException.class);
+        assertThatThrownBy(() -> storage.addUser(user("b@mail.ru", "a")))
+                .isInstanceOf(DuplicateEntityException.class);
+
+        // неудачная попытка не должна оставлять за собой занятый email
+        User created = storage.addUser(user("b@mail.ru", "b"));
+        assertThat(storage.findByEmail("b@mail.ru")).contains(created);
+        assertThat(storage.getAll()).hasSize(2);
+    }
+
+    @Test
+    void shouldMoveIndexEntriesOnUpdate() {
+        User created = storage.addUser(user("a@mail.ru", "a"));
+        storage.addUser(user("b@mail.ru", "b"));
+
+        User update = user("c@mail.ru", "c");
+        update.setId(created.getId());
+        storage.updateUser(update);
+
+        assertThat(storage.findByEmail("a@mail.ru")).isEmpty();
+        assertThat(storage.findByLogin("a")).isEmpty();
+        assertThat(storage.findByLogin("c")).contains(created);
+
+        User conflicting = user("d@mail.ru", "b");
+        conflicting.setId(created.getId());
+        assertThatThrownBy(() -> storage.updateUser(conflicting))
+                .isInstanceOf(DuplicateEntityException.class);
+        assertThat(storage.findByEmail("d@mail.ru")).isEmpty();
+        assertThat(storage.findByEmail("c@mail.ru")).contains(created);
+    }
+
+    @Test
+    void shouldReturnStoredUserAfterPartialUpdate() {
+        User created = storage.addUser(user("a@mail.ru", "a"));
+
+        User update = new User();
+        update.setId(created.getId());
+        update.setName(" ");
+        User updated = storage.updateUser(update);
+
+        // пустое имя заменяется сохранённым логином, остальные поля не теряются
+        assertThat(updated.getName()).isEqualTo("a");
+        assertThat(updated.getEmail()).isEqualTo("a@mail.ru");
+        assertThat(updated.getBirthday()).isEqualTo(LocalDate.of(1990, 1, 1));
+    }
+
+    @Test
+    void shouldReturnCopiesOfStoredUsers() {
+        User original = user("a@mail.ru", "a");
+        User created = storage.addUser(original);
+        original.setEmail("changed@mail.ru");
+        created.setLogin("changed");
+        storage.getById(created.getId()).orElseThrow().setName("changed");
+        storage.getAll().forEach(user -> user.setBirthday(LocalDate.of(2000, 1, 1)));
+
+        User stored = storage.getById(created.getId()).orElseThrow();
+        assertThat(stored.getEmail()).isEqualTo("a@mail.ru");
+        assertThat(stored.getLogin()).isEqualTo("a");
+        assertThat(stored.getName()).isEqualTo("a");
+        assertThat(stored.getBirthday()).isEqualTo(LocalDate.of(1990, 1, 1));
+    }
+}
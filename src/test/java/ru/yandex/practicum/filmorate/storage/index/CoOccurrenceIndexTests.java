@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CoOccurrenceIndexTests {
+
+    private static CoOccurrenceIndex sample() {
+        return CoOccurrenceIndex.build(Map.of(
+                1L, SortedLongSet.of(1, 2, 3),
+                2L, SortedLongSet.of(1, 2),
+                3L, SortedLongSet.of(1, 4)), 10);
+    }
+
+    @Test
+    void shouldRankSimilarFilmsByCosineSimilarity() {
+        CoOccurrenceIndex index = sample();
+
+        assertThat(index.similar(1, 10)).containsExactly(2L, 3L, 4L);
+        assertThat(index.neighbors(1).scores()[0]).isCloseTo(2 / Math.sqrt(6), within(1e-9));
+        assertThat(index.similar(1, 1)).containsExactly(2L);
+        assertThat(index.similar(99, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldRecommendUnlikedFilmsOfNeighbours() {
+        CoOccurrenceIndex index = sample();
+
+        assertThat(index.recommend(2, 10)).containsExactly(3L, 4L);
+        assertThat(index.recommend(99, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldApplyChangesIdempotently() {
+        CoOccurrenceIndex index = sample();
+
+        assertThat(index.apply(3, 4, true)).isFalse();
+        assertThat(index.apply(3, 2, true)).isTrue();
+        assertThat(index.similar(4, 10)).containsExactly(1L, 2L);
+
+        assertThat(index.apply(3, 2, false)).isTrue();
+        assertThat(index.apply(3, 2, false)).isFalse();
+        assertThat(index.similar(4, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldMatchFullRebuildAfterIncrementalUpdates() {
+        Random random = new Random(7);
+        CoOccurrenceIndex incremental = new CoOccurrenceIndex(5);
+        Map<Long, SortedLongSet> likes = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long userId = random.nextInt(50);
+            long filmId = random.nextInt(40);
+            boolean liked = random.nextInt(3) > 0;
+            incremental.apply(userId, filmId, liked);
+            SortedLongSet films = likes.getOrDefault(userId, SortedLongSet.EMPTY);
+            likes.put(userId, liked ? films.with(filmId) : films.without(filmId));
+        }
+        likes.values().removeIf(SortedLongSet::isEmpty);
+
+        CoOccurrenceIndex rebuilt = CoOccurrenceIndex.build(likes, 5);
+        for (long filmId = 0; filmId < 40; filmId++) {
+            assertThat(incremental.neighbors(filmId).filmIds()).isEqualTo(rebuilt.neighbors(filmId).filmIds());
+        }
+        for (long userId = 0; userId < 50; userId++) {
+            assertThat(incremental.recommend(userId, 5)).isEqualTo(rebuilt.recommend(userId, 5));
+        }
+    }
+}
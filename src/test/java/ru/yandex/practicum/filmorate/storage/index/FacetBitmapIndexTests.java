@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BrowseFilter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FacetBitmapIndexTests {
+
+    private static Film film(long id, long mpaId, int year, Integer... genreIds) {
+        Film film = new Film();
+        film.setId(id);
+        film.setRating(new MpaRating(mpaId, null));
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setGenres(Arrays.stream(genreIds).map(genreId -> new Genre(genreId, null)).toList());
+        return film;
+    }
+
+    private static FacetBitmapIndex sample() {
+        return FacetBitmapIndex.build(List.of(
+                film(1, 1, 1999, 1, 2),
+                film(2, 3, 2005, 2),
+                film(3, 3, 2010, 4),
+                film(4, 1, 2010)));
+    }
+
+    @Test
+    void shouldCombineValuesWithOrAndFacetsWithAnd() {
+        FacetBitmapIndex index = sample();
+
+        FacetBitmapIndex.Result result =
+                index.browse(new BrowseFilter(Set.of(1L, 4L), Set.of(3L), null, null), 0, 10);
+        assertThat(result.filmIds()).containsExactly(3L);
+        assertThat(result.total()).isEqualTo(1);
+
+        assertThat(index.browse(new BrowseFilter(null, null, 2005, null), 0, 10).filmIds())
+                .containsExactly(2L, 3L, 4L);
+        assertThat(index.browse(new BrowseFilter(Set.of(99L), null, null, null), 0, 10).filmIds()).isEmpty();
+    }
+
+    @Test
+    void shouldCountFacetsAgainstOtherFacetsOnly() {
+        FacetBitmapIndex.Result result =
+                sample().browse(new BrowseFilter(Set.of(2L), Set.of(1L), null, null), 0, 10);
+
+        assertThat(result.filmIds()).containsExactly(1L);
+        // жанры считаются по фильмам с MPA 1, рейтинги — по фильмам жанра 2
+        assertThat(result.genreCounts()).isEqualTo(Map.of(1L, 1, 2L, 1));
+        assertThat(result.mpaCounts()).isEqualTo(Map.of(1L, 1, 3L, 1));
+    }
+
+    @Test
+    void shouldPageById() {
+        FacetBitmapIndex index = sample();
+        BrowseFilter all = new BrowseFilter(null, null, null, null);
+
+        assertThat(index.browse(all, 0, 2).filmIds()).containsExactly(1L, 2L);
+        assertThat(index.browse(all, 2, 2).filmIds()).containsExactly(3L, 4L);
+        assertThat(index.browse(all, 2, 2).total()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldMoveFilmBetweenBitmapsOnUpdate() {
+        FacetBitmapIndex index = sample();
+
+        index.put(film(3, 1, 1999, 2));
+        index.put(film(5, 3, 2020, 4));
+
+        assertThat(index.browse(new BrowseFilter(Set.of(4L), null, null, null), 0, 10).filmIds())
+                .containsExactly(5L);
+        assertThat(index.browse(new BrowseFilter(Set.of(2L), null, 1990, 2000), 0, 10).filmIds())
+                .containsExactly(1L, 3L);
+    }
+
+    @Test
+    void shouldKeepFilmsBeyondBitRange() {
+        long big = Integer.MAX_VALUE + 10L;
+        FacetBitmapIndex index = FacetBitmapIndex.build(List.of(
+                film(1, 1, 1999, 1),
+                film(big, 3, 2010, 1, 2),
+                film(big + 1, 1, 2020, 2)));
+        BrowseFilter all = new BrowseFilter(null, null, null, null);
+
+        assertThat(index.browse(all, 0, 2).filmIds()).containsExactly(1L, big);
+        assertThat(index.browse(all, big, 2).filmIds()).containsExactly(big + 1);
+        assertThat(index.browse(all, 0, 10).total()).isEqualTo(3);
+
+        FacetBitmapIndex.Result result = index.browse(new BrowseFilter(Set.of(1L), Set.of(3L), 2000, null), 0, 10);
+        assertThat(result.filmIds()).containsExactly(big);
+        assertThat(result.genreCounts()).isEqualTo(Map.of(1L, 1, 2L, 1));
+        assertThat(result.mpaCounts()).isEqualTo(Map.of(3L, 1));
+
+        index.put(film(big, 1, 1999, 2));
+        assertThat(index.browse(new BrowseFilter(null, Set.of(3L), null, null), 0, 10).filmIds()).isEmpty();
+        assertThat(index.browse(new BrowseFilter(Set.of(2L), Set.of(1L), null, null), 0, 10).filmIds())
+                .containsExactly(big, big + 1);
+    }
+
+    @Test
+    void shouldRejectInvertedYearRange() {
+        assertThatThrownBy(() -> new BrowseFilter(null, null, 2010, 2000))
+                .isInstanceOf(ValidationException.class);
+    }
+}
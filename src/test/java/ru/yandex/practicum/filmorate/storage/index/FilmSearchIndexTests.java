@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTests {
+
+    private static Film film(long id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+
+    private static List<Long> ids(List<FilmSearchIndex.Match> matches) {
+        return matches.stream().map(FilmSearchIndex.Match::filmId).toList();
+    }
+
+    private static FilmSearchIndex sample() {
+        return FilmSearchIndex.build(List.of(
+                film(1, "Матрица", "Хакер узнаёт правду о мире"),
+                film(2, "Ёлки", "Новогодняя комедия о чудесах"),
+                film(3, "Хакеры", "Фильм о молодых хакерах"),
+                film(4, "The Matrix Reloaded", "Neo and the machines")));
+    }
+
+    @Test
+    void shouldNormalizeAndStemTokens() {
+        assertThat(FilmSearchIndex.tokenize("Ёлки и ПАЛКИ, the Movies!"))
+                .containsExactly("елк", "палк", "movie");
+        assertThat(FilmSearchIndex.tokenize("class")).containsExactly("class");
+        assertThat(FilmSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void shouldMatchInflectedFormsAndYo() {
+        FilmSearchIndex index = sample();
+
+        assertThat(ids(index.search("матрицу", 10))).containsExactly(1L);
+        assertThat(ids(index.search("елки", 10))).containsExactly(2L);
+        assertThat(ids(index.search("matrix", 10))).containsExactly(4L);
+    }
+
+    @Test
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        FilmSearchIndex index = sample();
+
+        assertThat(ids(index.search("хакер", 10))).containsExactly(3L, 1L);
+        assertThat(ids(index.search("хакер", 1))).containsExactly(3L);
+    }
+
+    @Test
+    void shouldMatchByPrefix() {
+        FilmSearchIndex index = sample();
+
+        assertThat(ids(index.search("матр", 10))).containsExactly(1L);
+        assertThat(ids(index.search("reload", 10))).containsExactly(4L);
+        assertThat(ids(index.search("ма", 10))).isEmpty();
+    }
+
+    @Test
+    void shouldReplaceDocumentOnUpdate() {
+        FilmSearchIndex index = sample();
+
+        index.put(film(1, "Начало", "Сон во сне"));
+        index.put(film(5, "Матрица: Революция", null));
+
+        assertThat(ids(index.search("матрица", 10))).containsExactly(5L);
+        assertThat(ids(index.search("начало", 10))).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.search("и", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class FriendSuggestionIndexTests {
+
+    private FriendshipGraph graph;
+    private FriendSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        graph = spy(new FriendshipGraph());
+        index = new FriendSuggestionIndex(graph, 3, 2);
+    }
+
+    private void addFriend(long userId, long friendId) {
+        int degreeBefore = graph.friends(userId).size();
+        graph.add(userId, friendId);
+        index.invalidate(userId, degreeBefore);
+    }
+
+    @Test
+    void shouldSkipFriendsAboveDegreeCap() {
+        addFriend(1, 2);
+        addFriend(1, 3);
+        addFriend(2, 10);
+        for (long id = 20; id < 24; id++) {
+            addFriend(3, id);
+        }
+
+        assertThat(index.suggest(1, 10)).containsExactly(10L);
+    }
+
+    @Test
+    void shouldRefreshFollowersWhenIntermediateFriendChanges() {
+        addFriend(1, 2);
+        addFriend(2, 10);
+        assertThat(index.suggest(1, 10)).containsExactly(10L);
+
+        addFriend(2, 11);
+
+        assertThat(index.suggest(1, 10)).containsExactly(10L, 11L);
+    }
+
+    @Test
+    void shouldServeLimitsAboveCacheSize() {
+        addFriend(1, 2);
+        addFriend(2, 10);
+        addFriend(2, 11);
+        addFriend(2, 12);
+
+        assertThat(index.suggest(1, 1)).containsExactly(10L);
+        assertThat(index.suggest(1, 10)).containsExactly(10L, 11L, 12L);
+    }
+
+    @Test
+    void shouldNotCacheSuggestionsComputedBeforeChange() {
+        addFriend(1, 2);
+        addFriend(2, 10);
+        // связи друга меняются, пока считаются подсказки
+        doAnswer(invocation -> {
+            Object before = invocation.callRealMethod();
+            addFriend(2, 11);
+            return before;
+        }).doCallRealMethod().when(graph).friends(2L);
+
+        assertThat(index.suggest(1, 2)).containsExactly(10L);
+        assertThat(index.suggest(1, 2)).containsExactly(10L, 11L);
+    }
+
+    @Test
+    void shouldCacheSuggestionsWhenUnrelatedUserChanges() {
+        addFriend(1, 2);
+        addFriend(2, 10);
+        doAnswer(invocation -> {
+            Object friends = invocation.callRealMethod();
+            addFriend(5, 6);
+            return friends;
+        }).doCallRealMethod().when(graph).friends(2L);
+        clearInvocations(graph);
+
+        assertThat(index.suggest(1, 2)).containsExactly(10L);
+        assertThat(index.suggest(1, 2)).containsExactly(10L);
+
+        verify(graph, times(1)).friends(1L);
+    }
+}
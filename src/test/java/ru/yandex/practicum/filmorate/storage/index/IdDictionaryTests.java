@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdDictionaryTests {
+
+    private static IdDictionary<Genre> sample() {
+        return new IdDictionary<>(List.of(new Genre(3, "Мультфильм"), new Genre(1, "Комедия"), new Genre(6, "Боевик")),
+                Genre::getId);
+    }
+
+    @Test
+    void shouldFindValuesById() {
+        IdDictionary<Genre> dictionary = sample();
+
+        assertThat(dictionary.get(1)).hasValue(new Genre(1, "Комедия"));
+        assertThat(dictionary.get(6)).map(Genre::getName).hasValue("Боевик");
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownIds() {
+        IdDictionary<Genre> dictionary = sample();
+
+        assertThat(dictionary.get(2)).isEmpty();
+        assertThat(dictionary.get(7)).isEmpty();
+        assertThat(dictionary.get(-1)).isEmpty();
+        assertThat(dictionary.get(Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void shouldListValuesInIdOrder() {
+        assertThat(sample().values())
+                .extracting(Genre::getId)
+                .containsExactly(1, 3, 6);
+        assertThat(new IdDictionary<Genre>(List.of(), Genre::getId).values()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectNegativeIds() {
+        assertThatThrownBy(() -> new IdDictionary<>(List.of(new Genre(-1, "?")), Genre::getId))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeIndexTests {
+
+    @Test
+    void shouldKeepSnapshotsIndependentOfLaterChanges() {
+        LikeIndex index = new LikeIndex();
+        SortedLongSet empty = index.get(1);
+
+        assertThat(index.add(1, 7)).isTrue();
+        assertThat(index.add(1, 7)).isFalse();
+        index.add(1, 3);
+        index.add(2, 7);
+        SortedLongSet snapshot = index.get(1);
+
+        assertThat(index.remove(1, 3)).isTrue();
+        assertThat(index.remove(1, 3)).isFalse();
+        assertThat(empty.isEmpty()).isTrue();
+        assertThat(snapshot.toArray()).containsExactly(3, 7);
+        assertThat(index.get(1).toArray()).containsExactly(7);
+        assertThat(index.common(1, 2).toArray()).containsExactly(7);
+    }
+
+    @Test
+    void shouldMatchSortedSetThroughGrowthAndShrinking() {
+        LikeIndex index = new LikeIndex();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long userId = random.nextInt(5_000);
+            boolean like = i < 10_000 || random.nextInt(4) == 0;
+            boolean changed = like ? index.add(1, userId) : index.remove(1, userId);
+            assertThat(changed).isEqualTo(like ? expected.add(userId) : expected.remove(userId));
+        }
+
+        assertThat(index.count(1)).isEqualTo(expected.size());
+        assertThat(index.get(1).asSet()).containsExactlyElementsOf(expected);
+        assertThat(index.contains(1, expected.first())).isTrue();
+        assertThat(index.after(1, expected.first(), 3))
+                .containsExactlyElementsOf(expected.tailSet(expected.first(), false).stream().limit(3).toList());
+        assertThat(index.after(2, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldReadConsistentSnapshotsWhileLikesChange() throws Exception {
+        LikeIndex index = new LikeIndex();
+        index.put(1, SortedLongSet.of(0));
+        AtomicBoolean done = new AtomicBoolean();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            Future<?> writer = executor.submit(() -> {
+                for (long userId = 1; userId <= 20_000; userId++) {
+                    index.add(1, userId);
+                    if (userId % 3 == 0) {
+                        index.remove(1, userId - 1);
+                    }
+                }
+                done.set(true);
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        long[] values = index.get(1).toArray();
+                        for (int i = 1; i < values.length; i++) {
+                            assertThat(values[i]).isGreaterThan(values[i - 1]);
+                        }
+                        assertThat(index.contains(1, 0)).isTrue();
+                    }
+                }));
+            }
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        }
+
+        assertThat(index.count(1)).isEqualTo(1 + 20_000 - 20_000 / 3);
+    }
+}
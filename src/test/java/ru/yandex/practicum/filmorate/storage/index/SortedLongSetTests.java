@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SortedLongSetTests {
+
+    @Test
+    void shouldSortAndDeduplicateOnBuild() {
+        SortedLongSet set = SortedLongSet.of(5, 1, 3, 1, 5);
+
+        assertThat(set.toArray()).containsExactly(1, 3, 5);
+        assertThat(set.size()).isEqualTo(3);
+        assertThat(set.contains(3)).isTrue();
+        assertThat(set.contains(4)).isFalse();
+    }
+
+    @Test
+    void shouldReturnSameInstanceWhenNothingChanges() {
+        SortedLongSet set = SortedLongSet.of(1, 2);
+
+        assertThat(set.with(2)).isSameAs(set);
+        assertThat(set.without(7)).isSameAs(set);
+        assertThat(set.with(0).toArray()).containsExactly(0, 1, 2);
+        assertThat(set.without(1).toArray()).containsExactly(2);
+        assertThat(set.toArray()).containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldIntersectBySizeRatio() {
+        SortedLongSet evens = SortedLongSet.of(LongStream.range(0, 1000).map(i -> i * 2).toArray());
+        SortedLongSet small = SortedLongSet.of(3, 4, 10, 1998, 5000);
+        SortedLongSet threes = SortedLongSet.of(LongStream.range(0, 700).map(i -> i * 3).toArray());
+
+        assertThat(small.intersect(evens).toArray()).containsExactly(4, 10, 1998);
+        assertThat(evens.intersectionSize(small)).isEqualTo(3);
+        assertThat(evens.intersectionSize(threes)).isEqualTo(334);
+        assertThat(SortedLongSet.EMPTY.intersect(evens)).isSameAs(SortedLongSet.EMPTY);
+    }
+
+    @Test
+    void shouldPageValuesAfterCursor() {
+        SortedLongSet set = SortedLongSet.of(10, 20, 30, 40);
+
+        assertThat(set.after(0, 2)).containsExactly(10L, 20L);
+        assertThat(set.after(20, 10)).containsExactly(30L, 40L);
+        assertThat(set.after(25, 1)).containsExactly(30L);
+        assertThat(set.after(40, 5)).isEmpty();
+    }
+
+    @Test
+    void shouldExposeReadOnlySetView() {
+        Set<Long> view = SortedLongSet.of(2, 1).asSet();
+
+        assertThat(view).containsExactly(1L, 2L);
+        assertThat(view).isEqualTo(Set.of(1L, 2L));
+        assertThatThrownBy(() -> view.add(3L)).isInstanceOf(UnsupportedOperationException.class);
+    }
+}